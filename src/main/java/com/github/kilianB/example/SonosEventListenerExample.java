@@ -14,6 +14,8 @@ import com.github.kilianB.sonos.model.PlayMode;
 import com.github.kilianB.sonos.model.PlayState;
 import com.github.kilianB.sonos.model.QueueEvent;
 import com.github.kilianB.sonos.model.TrackInfo;
+import com.github.kilianB.sonos.model.ZoneGroup;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
 
 /**
  * This example demonstrates how to use upnp event callbacks to react to changes 
@@ -91,6 +93,31 @@ public class SonosEventListenerExample {
 				public void groupChanged(ArrayList<String> allDevicesInZone) {
 					System.out.println("Group changed. " + (allDevicesInZone.size() > 1 ? "grouped" : "solo"));
 				}
+
+				@Override
+				public void memberOnline(ZoneGroupMember member) {
+					System.out.println("Member online: " + member);
+				}
+
+				@Override
+				public void memberOffline(ZoneGroupMember member) {
+					System.out.println("Member offline: " + member);
+				}
+
+				@Override
+				public void groupJoined(ZoneGroupMember member, ZoneGroup group) {
+					System.out.println(member.getZoneName() + " joined " + group.getId());
+				}
+
+				@Override
+				public void groupLeft(ZoneGroupMember member, ZoneGroup group) {
+					System.out.println(member.getZoneName() + " left " + group.getId());
+				}
+
+				@Override
+				public void coordinatorChanged(ZoneGroup group, String previousCoordinatorUUID) {
+					System.out.println("Coordinator of " + group.getId() + " changed to " + group.getCoordinatorUUID());
+				}
 			});
 			
 			
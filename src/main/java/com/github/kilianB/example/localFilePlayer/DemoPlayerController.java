@@ -21,6 +21,7 @@ import com.github.kilianB.example.localFilePlayer.fileHandling.model.IndexedFold
 import com.github.kilianB.example.localFilePlayer.fileHandling.model.Song;
 import com.github.kilianB.exception.SonosControllerException;
 import com.github.kilianB.sonos.ParserHelper;
+import com.github.kilianB.sonos.PositionClock;
 import com.github.kilianB.sonos.SonosDevice;
 import com.github.kilianB.sonos.SonosDiscovery;
 import com.github.kilianB.sonos.listener.SonosEventAdapter;
@@ -474,17 +475,17 @@ public class DemoPlayerController {
 						});
 
 						if (sonosDevice == currentlyActiveDevice) {
-							boolean playing = true;
 							try {
-								playing = sonosDevice.getPlayState().equals(PlayState.PLAYING);
+								PositionClock clock = sonosDevice.getPositionClock();
+								boolean playing = clock.getPlayState().equals(PlayState.PLAYING);
+
+								// Traclinfo is not properly initialized when using the playUri command
+								// Therefore, we do not have access to the duration.
+
+								setupSongPositionSpliderAnimation(currentTrack, clock.currentPosition(), playing);
 							} catch (IOException | SonosControllerException e) {
 								e.printStackTrace();
 							}
-
-							// Traclinfo is not properly initialized when using the playUri command
-							// Therefore, we do not have access to the duration.
-
-							setupSongPositionSpliderAnimation(currentTrack, playing);
 						}
 					}
 
@@ -526,7 +527,8 @@ public class DemoPlayerController {
 				});
 
 				try {
-					TrackInfo track = sonosDevice.getCurrentTrackInfo();
+					// Seeded once, afterwards kept up to date by events
+					TrackInfo track = sonosDevice.getPositionClock().getTrack();
 
 					TrackMetadata trackMeta = track.getMetadata();
 
@@ -1073,12 +1075,15 @@ public class DemoPlayerController {
 
 				groupWrapper.getStyleClass().add("selected");
 
-				TrackInfo curTrack = device.getCurrentTrackInfo();
+				// The clock tracks the position locally without polling the device
+				PositionClock clock = device.getPositionClock();
+
+				TrackInfo curTrack = clock.getTrack();
 
-				boolean playing = device.getPlayState().equals(PlayState.PLAYING);
+				boolean playing = clock.getPlayState().equals(PlayState.PLAYING);
 
 				if (curTrack != null)
-					setupSongPositionSpliderAnimation(curTrack, playing);
+					setupSongPositionSpliderAnimation(curTrack, clock.currentPosition(), playing);
 
 				volumeSlider.setValue(device.getVolume());
 
@@ -1248,7 +1253,7 @@ public class DemoPlayerController {
 		}
 	}
 
-	private void setupSongPositionSpliderAnimation(TrackInfo currentTrack, boolean playing) {
+	private void setupSongPositionSpliderAnimation(TrackInfo currentTrack, int position, boolean playing) {
 
 		System.out.println("Setup position slider animation");
 
@@ -1291,12 +1296,12 @@ public class DemoPlayerController {
 
 		songPositionSlider.setMin(0);
 		songPositionSlider.setMax(duration);
-		songPositionSlider.setValue(currentTrack.getPosition());
+		songPositionSlider.setValue(position);
 
 		positionAnimation.stop();
 		positionAnimation.getKeyFrames().clear();
 
-		int initialOffset = currentTrack.getPosition();
+		int initialOffset = position;
 
 		// Weak listener should be gced automatically? TODO care about memory leak?
 		SimpleStringProperty durationLabelTest = new SimpleStringProperty();
@@ -1317,9 +1322,9 @@ public class DemoPlayerController {
 		KeyValue kv = new KeyValue(songPositionSlider.valueProperty(), duration);
 		KeyValue kv1 = new KeyValue(currentPositionProperty, duration);
 
-		double timeLeft = duration - currentTrack.getPosition();
+		double timeLeft = duration - position;
 
-		System.out.println(timeLeft + " " + duration + " " + currentTrack.getPosition());
+		System.out.println(timeLeft + " " + duration + " " + position);
 
 		if (timeLeft > 0) {
 
@@ -0,0 +1,18 @@
+package com.github.kilianB.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request to a device which repeatedly failed to
+ * respond. The request was not sent.
+ * 
+ * @author Kilian
+ */
+public class CircuitOpenException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CircuitOpenException(String message) {
+		super(message);
+	}
+}
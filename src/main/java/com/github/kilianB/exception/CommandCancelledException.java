@@ -0,0 +1,18 @@
+package com.github.kilianB.exception;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Thrown if a command was cancelled by the caller before or while it was sent
+ * to the device. The device may or may not have applied the command.
+ * 
+ * @author Kilian
+ */
+public class CommandCancelledException extends InterruptedIOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CommandCancelledException(String message) {
+		super(message);
+	}
+}
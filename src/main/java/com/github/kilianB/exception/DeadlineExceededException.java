@@ -0,0 +1,16 @@
+package com.github.kilianB.exception;
+
+/**
+ * Thrown if a command could not be completed before its deadline. The device
+ * may or may not have applied the command.
+ * 
+ * @author Kilian
+ */
+public class DeadlineExceededException extends CommandCancelledException {
+
+	private static final long serialVersionUID = 1L;
+
+	public DeadlineExceededException(String message) {
+		super(message);
+	}
+}
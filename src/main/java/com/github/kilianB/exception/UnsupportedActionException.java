@@ -0,0 +1,17 @@
+package com.github.kilianB.exception;
+
+/**
+ * Thrown without contacting the device if the service description of the
+ * device model does not offer the requested action. Carries the same error code
+ * the device would have answered with.
+ * 
+ * @author Kilian
+ */
+public class UnsupportedActionException extends UPnPSonosControllerException {
+
+	private static final long serialVersionUID = 1L;
+
+	public UnsupportedActionException(String message) {
+		super(message, 401, "Invalid Action", null);
+	}
+}
@@ -0,0 +1,336 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.sonos.model.PlayState;
+import com.github.kilianB.sonos.model.PlaybackSnapshot;
+import com.github.kilianB.sonos.model.TrackInfo;
+import com.github.kilianB.sonos.model.TrackMetadata;
+
+/**
+ * Plays announcements on multiple devices at once and restores the previous
+ * playback afterwards.
+ * <p>
+ * Snapshotting, starting the clip and restoring are issued concurrently for all
+ * devices, the end of the clip is detected via UPnP events. The added latency
+ * therefore stays close to a single round trip independent of the number of
+ * rooms.
+ *
+ * <pre>
+ * AnnouncementEngine engine = new AnnouncementEngine();
+ * engine.announce(devices, "http://192.168.0.2/doorbell.mp3", null, 40, Mode.PER_ROOM, 30, TimeUnit.SECONDS);
+ * </pre>
+ *
+ * @author Kilian
+ *
+ */
+public class AnnouncementEngine {
+
+	public enum Mode {
+		/**
+		 * Every room plays the clip on its own transport. Members of a target's
+		 * group which are not targets themselves will hear the clip as well.
+		 */
+		PER_ROOM,
+		/**
+		 * All rooms are joined to a temporary group coordinated by the first device
+		 * resulting in synchronized playback. The first device should not coordinate
+		 * members which are not targets since they are not rejoined afterwards.
+		 */
+		TEMPORARY_GROUP
+	}
+
+	private final Executor executor;
+
+	public AnnouncementEngine() {
+		this(Async.POOL);
+	}
+
+	/**
+	 * @param executor the executor used to issue the concurrent requests
+	 */
+	public AnnouncementEngine(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Play a clip on all devices and restore the previous state once the clip
+	 * finished. This method blocks until the playback state was restored.
+	 *
+	 * @param devices  the devices to play the announcement on
+	 * @param uri      URI of the clip
+	 * @param metadata The track metadata to show in the player (DIDL format). May
+	 *                 be null
+	 * @param volume   the volume to play the clip at or -1 to keep the current
+	 *                 volume
+	 * @param mode     how the clip is distributed to the devices
+	 * @param timeout  the maximum time to wait for the clip to finish. A value
+	 *                 {@literal <}= 0 waits indefinitely
+	 * @param unit     the time unit of the timeout
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 * @throws InterruptedException     If the thread gets interrupted
+	 */
+	public void announce(Collection<SonosDevice> devices, String uri, TrackMetadata metadata, int volume, Mode mode,
+			long timeout, TimeUnit unit) throws IOException, SonosControllerException, InterruptedException {
+		EventCondition.await(announceAsync(devices, uri, metadata, volume, mode, timeout, unit));
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link #announce(Collection, String, TrackMetadata, int, Mode, long, TimeUnit)}.
+	 * The previous state is restored even if the clip times out.
+	 *
+	 * @param devices  the devices to play the announcement on
+	 * @param uri      URI of the clip
+	 * @param metadata The track metadata to show in the player (DIDL format). May
+	 *                 be null
+	 * @param volume   the volume to play the clip at or -1 to keep the current
+	 *                 volume
+	 * @param mode     how the clip is distributed to the devices
+	 * @param timeout  the maximum time to wait for the clip to finish. A value
+	 *                 {@literal <}= 0 waits indefinitely
+	 * @param unit     the time unit of the timeout
+	 * @return a future completing once the previous state was restored
+	 */
+	public CompletableFuture<Void> announceAsync(Collection<SonosDevice> devices, String uri,
+			TrackMetadata metadata, int volume, Mode mode, long timeout, TimeUnit unit) {
+
+		if (devices.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		String metadataString = metadata == null ? "" : metadata.toDIDL();
+
+		return snapshot(devices).thenCompose(snapshots -> {
+			CompletableFuture<Void> played;
+			if (mode.equals(Mode.TEMPORARY_GROUP)) {
+				played = playGrouped(snapshots, uri, metadataString, volume, timeout, unit);
+			} else {
+				played = playPerRoom(snapshots, uri, metadataString, volume, timeout, unit);
+			}
+			// Always restore, but still report a failed playback
+			return played.handle((ignore, playbackFailure) -> playbackFailure)
+					.thenCompose(playbackFailure -> restore(snapshots).thenApply(ignore -> {
+						if (playbackFailure != null) {
+							throw wrap(playbackFailure);
+						}
+						return null;
+					}));
+		});
+	}
+
+	/**
+	 * Capture the playback state of all devices concurrently.
+	 *
+	 * @param devices the devices to snapshot
+	 * @return a future completing with the snapshots in the iteration order of the
+	 *         devices
+	 */
+	public CompletableFuture<List<PlaybackSnapshot>> snapshot(Collection<SonosDevice> devices) {
+		List<CompletableFuture<PlaybackSnapshot>> futures = new ArrayList<>();
+		for (SonosDevice device : devices) {
+			futures.add(snapshot(device));
+		}
+		return Async.allOf(futures).thenApply(ignore -> {
+			List<PlaybackSnapshot> snapshots = new ArrayList<>();
+			for (CompletableFuture<PlaybackSnapshot> future : futures) {
+				snapshots.add(future.join());
+			}
+			return snapshots;
+		});
+	}
+
+	/**
+	 * Restore the playback state of all devices concurrently. Coordinators and
+	 * standalone devices are restored first, afterwards group members rejoin their
+	 * coordinators.
+	 *
+	 * @param snapshots the snapshots to restore
+	 * @return a future completing once all devices are restored
+	 */
+	public CompletableFuture<Void> restore(List<PlaybackSnapshot> snapshots) {
+		List<CompletableFuture<?>> sources = new ArrayList<>();
+		List<PlaybackSnapshot> members = new ArrayList<>();
+
+		for (PlaybackSnapshot snapshot : snapshots) {
+			SonosDevice device = snapshot.getDevice();
+			sources.add(Async.supply(() -> {
+				device.setVolume(snapshot.getVolume());
+				return null;
+			}, executor));
+			sources.add(Async.supply(() -> {
+				device.setMute(snapshot.isMuted());
+				return null;
+			}, executor));
+
+			if (snapshot.isGroupMember()) {
+				members.add(snapshot);
+			} else {
+				sources.add(Async.supply(() -> {
+					restoreSource(snapshot);
+					return null;
+				}, executor));
+			}
+		}
+
+		// Rejoin the members even if a coordinator could not be restored
+		return Async.allOf(sources).handle((ignore, sourceFailure) -> sourceFailure).thenCompose(sourceFailure -> {
+			List<CompletableFuture<?>> joins = new ArrayList<>();
+			for (PlaybackSnapshot member : members) {
+				joins.add(Async.supply(() -> {
+					setTransportURI(member.getDevice(), member.getTransportURI(), member.getTransportMetadata());
+					return null;
+				}, executor));
+			}
+			return Async.allOf(joins).thenApply(ignore -> {
+				if (sourceFailure != null) {
+					throw wrap(sourceFailure);
+				}
+				return null;
+			});
+		});
+	}
+
+	private CompletableFuture<PlaybackSnapshot> snapshot(SonosDevice device) {
+		CompletableFuture<String> uuid = Async.supply(device::getLocalUID, executor);
+		CompletableFuture<String> mediaInfo = Async
+				.supply(() -> CommandBuilder.transport("GetMediaInfo").put("InstanceID", "0")
+						.executeOn(device.getIpAddress()), executor);
+		CompletableFuture<PlayState> playState = Async.supply(device::getPlayState, executor);
+		CompletableFuture<TrackInfo> track = Async.supply(device::getCurrentTrackInfo, executor);
+		CompletableFuture<Integer> volume = Async.supply(device::getVolume, executor);
+		CompletableFuture<Boolean> muted = Async.supply(device::isMuted, executor);
+
+		return CompletableFuture.allOf(uuid, mediaInfo, playState, track, volume, muted).thenApply(ignore -> {
+			String media = mediaInfo.join();
+			return new PlaybackSnapshot(device, uuid.join(),
+					ParserHelper.findOne("<CurrentURI>(.*)</CurrentURI>", media),
+					ParserHelper.findOne("<CurrentURIMetaData>(.*)</CurrentURIMetaData>", media), playState.join(),
+					track.join().getQueueIndex(), track.join().getPosition(), volume.join(), muted.join());
+		});
+	}
+
+	private CompletableFuture<Void> playPerRoom(List<PlaybackSnapshot> snapshots, String uri, String metadata,
+			int volume, long timeout, TimeUnit unit) {
+		List<CompletableFuture<?>> finished = new ArrayList<>();
+		List<CompletableFuture<?>> started = new ArrayList<>();
+
+		for (PlaybackSnapshot snapshot : snapshots) {
+			SonosDevice device = snapshot.getDevice();
+			started.addAll(prepareVolume(device, volume));
+			// Register before starting the playback to not miss the end of short clips
+			CompletableFuture<PlayState> done = device.awaitPlaybackFinished(timeout, unit);
+			finished.add(done);
+			CompletableFuture<Void> play = Async.supply(() -> {
+				setTransportURI(device, uri, metadata);
+				device.play();
+				return null;
+			}, executor);
+			play.whenComplete((ignore, exception) -> {
+				if (exception != null) {
+					done.cancel(false);
+				}
+			});
+			started.add(play);
+		}
+		return Async.allOf(started).thenCompose(ignore -> Async.allOf(finished));
+	}
+
+	private CompletableFuture<Void> playGrouped(List<PlaybackSnapshot> snapshots, String uri, String metadata,
+			int volume, long timeout, TimeUnit unit) {
+		PlaybackSnapshot coordinator = snapshots.get(0);
+		SonosDevice coordinatorDevice = coordinator.getDevice();
+
+		List<CompletableFuture<?>> prepared = new ArrayList<>();
+		for (PlaybackSnapshot snapshot : snapshots) {
+			SonosDevice device = snapshot.getDevice();
+			prepared.addAll(prepareVolume(device, volume));
+			if (snapshot == coordinator) {
+				prepared.add(Async.supply(() -> {
+					// Leave the current group so existing members won't hear the clip
+					if (snapshot.isGroupMember() || device.isJoined()) {
+						device.unjoin();
+					}
+					setTransportURI(device, uri, metadata);
+					return null;
+				}, executor));
+			} else {
+				prepared.add(Async.supply(() -> {
+					device.join(coordinator.getUUID());
+					return null;
+				}, executor));
+			}
+		}
+
+		return Async.allOf(prepared).thenCompose(ignore -> {
+			CompletableFuture<PlayState> done = coordinatorDevice.awaitPlaybackFinished(timeout, unit);
+			return Async.supply(() -> {
+				coordinatorDevice.play();
+				return null;
+			}, executor).whenComplete((ignored, exception) -> {
+				if (exception != null) {
+					done.cancel(false);
+				}
+			}).thenCompose(ignored -> done).thenApply(state -> null);
+		});
+	}
+
+	private List<CompletableFuture<?>> prepareVolume(SonosDevice device, int volume) {
+		List<CompletableFuture<?>> futures = new ArrayList<>();
+		if (volume >= 0) {
+			futures.add(Async.supply(() -> {
+				device.setVolume(volume);
+				return null;
+			}, executor));
+			futures.add(Async.supply(() -> {
+				device.setMute(false);
+				return null;
+			}, executor));
+		}
+		return futures;
+	}
+
+	private static void restoreSource(PlaybackSnapshot snapshot) throws IOException, SonosControllerException {
+		SonosDevice device = snapshot.getDevice();
+		if (snapshot.getTransportURI().isEmpty()) {
+			device.stop();
+			return;
+		}
+		setTransportURI(device, snapshot.getTransportURI(), snapshot.getTransportMetadata());
+
+		if (snapshot.isQueueSource() && snapshot.getTrackNumber() > 0) {
+			CommandBuilder.transport("Seek").put("InstanceID", "0").put("Unit", "TRACK_NR")
+					.put("Target", String.valueOf(snapshot.getTrackNumber())).executeOn(device.getIpAddress());
+			if (snapshot.getPosition() > 0) {
+				device.seek(snapshot.getPosition());
+			}
+		}
+
+		if (snapshot.getPlayState().equals(PlayState.PLAYING)
+				|| snapshot.getPlayState().equals(PlayState.TRANSITIONING)) {
+			device.play();
+		}
+	}
+
+	private static void setTransportURI(SonosDevice device, String uri, String metadata)
+			throws IOException, SonosControllerException {
+		device.loadUri(uri, metadata);
+	}
+
+	private static RuntimeException wrap(Throwable throwable) {
+		if (throwable instanceof RuntimeException) {
+			return (RuntimeException) throwable;
+		}
+		return new CompletionException(throwable);
+	}
+}
@@ -0,0 +1,116 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.github.kilianB.DaemonThreadFactory;
+import com.github.kilianB.exception.SonosControllerException;
+
+/**
+ * Helper to issue blocking device calls concurrently.
+ *
+ * @author Kilian
+ *
+ */
+final class Async {
+
+	/**
+	 * Shared pool used to issue concurrent requests to devices. Threads are mostly
+	 * waiting for network io.
+	 */
+	static final ExecutorService POOL = Executors.newCachedThreadPool(new DaemonThreadFactory("SonosAsync"));
+
+	// Hide the implicit public constructor.
+	private Async() {
+	}
+
+	/**
+	 * A blocking call to a sonos device
+	 */
+	@FunctionalInterface
+	interface DeviceCall<T> {
+		T call() throws IOException, SonosControllerException;
+	}
+
+	/**
+	 * Issue a blocking device call on the given executor.
+	 *
+	 * @param call     the call to execute
+	 * @param executor the executor to run the call on
+	 * @return a future completing with the result of the call. Checked exceptions
+	 *         are wrapped in a {@link CompletionException}
+	 */
+	static <T> CompletableFuture<T> supply(DeviceCall<T> call, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return call.call();
+			} catch (IOException | SonosControllerException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Create an executor running at most the given number of tasks at once on the
+	 * shared {@link #POOL}. Further tasks are queued without blocking the
+	 * submitting thread. The executor holds no threads of its own and does not
+	 * have to be shut down.
+	 *
+	 * @param maxParallelism the maximum number of tasks running at once
+	 * @return the bounded executor
+	 */
+	static Executor bounded(int maxParallelism) {
+		return new BoundedExecutor(maxParallelism);
+	}
+
+	private static class BoundedExecutor implements Executor {
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		private final Semaphore permits;
+
+		BoundedExecutor(int maxParallelism) {
+			permits = new Semaphore(maxParallelism);
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			tasks.add(task);
+			drain();
+		}
+
+		private void drain() {
+			while (!tasks.isEmpty() && permits.tryAcquire()) {
+				Runnable task = tasks.poll();
+				if (task == null) {
+					permits.release();
+					continue;
+				}
+				POOL.execute(() -> {
+					try {
+						task.run();
+					} finally {
+						permits.release();
+						// Tasks queued while all permits were taken
+						drain();
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * @param futures the futures to combine
+	 * @return a future completing once all futures completed
+	 */
+	static CompletableFuture<Void> allOf(Collection<? extends CompletableFuture<?>> futures) {
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+	}
+}
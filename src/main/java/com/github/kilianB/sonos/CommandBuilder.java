@@ -1,17 +1,26 @@
 package com.github.kilianB.sonos;
 
 import com.github.kilianB.StringUtil;
+import com.github.kilianB.exception.CircuitOpenException;
+import com.github.kilianB.exception.DeadlineExceededException;
 import com.github.kilianB.exception.SonosControllerException;
 import com.github.kilianB.exception.UPnPSonosControllerException;
+import com.github.kilianB.sonos.model.TransportMetrics;
 
 import okhttp3.*;
 import org.apache.commons.text.StringEscapeUtils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author vmichalak
@@ -24,6 +33,8 @@ class CommandBuilder {
 	private static final String TRANSPORT_SERVICE = "urn:schemas-upnp-org:service:AVTransport:1";
 	private static final String RENDERING_ENDPOINT = "/MediaRenderer/RenderingControl/Control";
 	private static final String RENDERING_SERVICE = "urn:schemas-upnp-org:service:RenderingControl:1";
+	private static final String GROUP_RENDERING_ENDPOINT = "/MediaRenderer/GroupRenderingControl/Control";
+	private static final String GROUP_RENDERING_SERVICE = "urn:schemas-upnp-org:service:GroupRenderingControl:1";
 	private static final String DEVICE_ENDPOINT = "/DeviceProperties/Control";
 	private static final String DEVICE_SERVICE = "urn:schemas-upnp-org:service:DeviceProperties:1";
 	private static final String CONTENT_DIRECTORY_ENDPOINT = "/MediaServer/ContentDirectory/Control";
@@ -59,12 +70,19 @@ class CommandBuilder {
 		ERROR_DESCRIPTION_MAP.put(714, "Illegal MIME-Type");
 	}
 
+	private static final int MAX_IDLE_CONNECTIONS = 32;
+	private static final long KEEP_ALIVE_MINUTES = 5;
+
 	private static OkHttpClient httpClient;
 
+	private static final List<CommandInterceptor> INTERCEPTORS = new CopyOnWriteArrayList<>();
+
 	private final String endpoint;
 	private final String service;
 	private final String action;
-	private final HashMap<String, String> bodyEntries = new HashMap<String, String>();
+	/** Arguments in the order they are sent. UPnP requires the declaration order */
+	private final LinkedHashMap<String, String> bodyEntries = new LinkedHashMap<String, String>();
+	private RequestPriority priority = RequestPriority.NORMAL;
 
 	public CommandBuilder(String endpoint, String service, String action) {
 		this.endpoint = endpoint;
@@ -80,6 +98,10 @@ class CommandBuilder {
 		return new CommandBuilder(RENDERING_ENDPOINT, RENDERING_SERVICE, action);
 	}
 
+	public static CommandBuilder groupRendering(String action) {
+		return new CommandBuilder(GROUP_RENDERING_ENDPOINT, GROUP_RENDERING_SERVICE, action);
+	}
+
 	public static CommandBuilder device(String action) {
 		return new CommandBuilder(DEVICE_ENDPOINT, DEVICE_SERVICE, action);
 	}
@@ -93,13 +115,143 @@ class CommandBuilder {
 	}
 
 	public static String download(String ip, String url) throws IOException, SonosControllerException {
-		String uri = "http://" + ip + ":" + SOAP_PORT + "/" + url;
-		Request request = new Request.Builder().url(uri).get().build();
-		String response = getHttpClient().newCall(request).execute().body().string();
+		String response = fetch(ip, url);
 		handleError(ip, response);
 		return response;
 	}
 
+	/**
+	 * Download a document from the device without checking for UPnP errors.
+	 *
+	 * @param ip  the ip of the device
+	 * @param url the path relative to the root of the device
+	 * @return the body of the response
+	 * @throws IOException IOException during HTTP Client operation
+	 */
+	static String fetch(String ip, String url) throws IOException {
+		String uri = "http://" + ip + ":" + SOAP_PORT + "/" + url;
+		Request request = new Request.Builder().url(uri).get().build();
+		// Timeouts are learned per document, not per query
+		int query = url.indexOf('?');
+		return execute(ip, query < 0 ? url : url.substring(0, query), request, RequestPriority.NORMAL, true);
+	}
+
+	/**
+	 * Send the request. Idempotent requests failing with an io error are retried
+	 * with a jittered backoff unless the circuit of the device opened.
+	 *
+	 * @param operation the soap action or downloaded path the timeout is learned
+	 *                  for
+	 */
+	private static String execute(String ip, String operation, Request request, RequestPriority priority,
+			boolean idempotent) throws IOException {
+		DeviceHealth health = DeviceHealth.of(ip);
+		int attempt = 0;
+		while (true) {
+			try {
+				return sendAttempt(ip, operation, request, priority, health);
+			} catch (IOException e) {
+				// Timeouts are InterruptedIOExceptions as well but can be retried
+				boolean retryable = idempotent && !(e instanceof CircuitOpenException)
+						&& (!(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException);
+				if (!retryable || attempt >= DeviceHealth.MAX_RETRIES || health.isOpen()) {
+					throw e;
+				}
+			}
+			attempt++;
+			try {
+				long delay = health.recordRetry(attempt);
+				CommandScope scope = CommandScope.current();
+				if (scope != null && scope.remainingMillis() <= delay) {
+					throw new DeadlineExceededException("Deadline exceeded for command to " + ip);
+				}
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting to retry the request");
+			}
+		}
+	}
+
+	private static String sendAttempt(String ip, String operation, Request request, RequestPriority priority,
+			DeviceHealth health) throws IOException {
+		CommandScope scope = CommandScope.current();
+		if (scope != null) {
+			scope.check(ip);
+		}
+		RequestGate gate = RequestGate.of(ip);
+		try {
+			if (!gate.acquire(priority, scope)) {
+				throw scope.exception(ip);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a free request slot");
+		}
+		try {
+			health.beforeRequest(ip);
+		} catch (CircuitOpenException e) {
+			gate.release(priority);
+			throw e;
+		}
+		// Every admitted request is recorded exactly once. Unchecked exceptions
+		// must free the trial request of a half open circuit as well
+		boolean recorded = false;
+		try {
+			long timeout = health.getTimeout(operation);
+			if (scope != null) {
+				// Never wait for a response past the deadline
+				timeout = Math.max(1, Math.min(timeout, scope.remainingMillis()));
+			}
+			// Derived clients share the connection pool and dispatcher
+			ConnectPhase phase = new ConnectPhase();
+			OkHttpClient.Builder builder = getHttpClient().newBuilder().eventListener(phase);
+			if (timeout != DeviceHealth.DEFAULT_TIMEOUT) {
+				builder.connectTimeout(timeout, TimeUnit.MILLISECONDS).readTimeout(timeout, TimeUnit.MILLISECONDS)
+						.writeTimeout(timeout, TimeUnit.MILLISECONDS);
+			}
+			Call call = builder.build().newCall(request);
+			if (scope != null) {
+				scope.register(call);
+			}
+			long start = System.nanoTime();
+			String response;
+			try {
+				response = call.execute().body().string();
+			} catch (IOException e) {
+				if (scope != null && scope.isDone()) {
+					// Cancelled by the caller. Not a failure of the device
+					throw scope.exception(ip);
+				}
+				health.recordFailure(operation, e, phase.connected);
+				recorded = true;
+				throw e;
+			} finally {
+				if (scope != null) {
+					scope.unregister(call);
+				}
+			}
+			health.recordSuccess(operation, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			recorded = true;
+			return response;
+		} finally {
+			if (!recorded) {
+				// Cancelled by the caller or unchecked exception. Not a failure of the
+				// device
+				health.recordAborted();
+			}
+			gate.release(priority);
+		}
+	}
+
+	/**
+	 * @param ip the ip of the device
+	 * @return the latency, timeout, retry and circuit breaker metrics of the device
+	 */
+	static TransportMetrics getMetrics(String ip) {
+		return DeviceHealth.of(ip).getMetrics();
+	}
+
 	public CommandBuilder put(String key, String value) {
 		if (!StringUtil.isEscaped(value)) {
 			value = StringEscapeUtils.escapeXml11(value);
@@ -108,21 +260,116 @@ class CommandBuilder {
 		return this;
 	}
 
+	/**
+	 * @param priority the priority used to admit the request if multiple requests
+	 *                 to the same device are pending. Defaults to
+	 *                 {@link RequestPriority#NORMAL}
+	 * @return this builder
+	 */
+	public CommandBuilder priority(RequestPriority priority) {
+		this.priority = priority;
+		return this;
+	}
+
 	public String executeOn(String ip) throws IOException, SonosControllerException {
-		String uri = "http://" + ip + ":" + SOAP_PORT + this.endpoint;
 		String content = "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\""
 				+ " s:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\"><s:Body>" + "<u:" + this.action
 				+ " xmlns:u=\"" + this.service + "\">" + this.getBody() + "</u:" + this.action + ">"
 				+ "</s:Body></s:Envelope>";
-		RequestBody body = RequestBody.create(MediaType.parse("application/text"), content.getBytes("UTF-8"));
-		Request request = new Request.Builder().url(uri).addHeader("Content-Type", "text/xml")
-				.addHeader("SOAPACTION", this.service + "#" + this.action).post(body).build();
-		String response = getHttpClient().newCall(request).execute().body().string();
+		String response = executeEnvelope(ip, endpoint, service, action, bodyEntries, content,
+				isReadOnly(action), priority);
 		response = unescape(response);
 		handleError(ip, response);
 		return response;
 	}
 
+	/**
+	 * Send a prepared SOAP envelope through the interceptor chain.
+	 *
+	 * @param ip        the ip of the device
+	 * @param endpoint  the control url of the service
+	 * @param service   the service type
+	 * @param action    the name of the action
+	 * @param arguments the escaped arguments contained in the envelope
+	 * @param envelope  the SOAP envelope
+	 * @param readOnly  true if the action does not change state and may be retried
+	 * @param priority  the priority used to admit the request
+	 * @return the raw response body. Neither unescaped nor checked for UPnP errors
+	 * @throws IOException              IOException during HTTP Client operation .
+	 * @throws SonosControllerException if an interceptor rejects the command
+	 */
+	static String executeEnvelope(String ip, String endpoint, String service, String action,
+			Map<String, String> arguments, String envelope, boolean readOnly, RequestPriority priority)
+			throws IOException, SonosControllerException {
+		SoapCommand command = new SoapCommand(ip, endpoint, service, action, arguments, envelope.getBytes("UTF-8"),
+				readOnly);
+		CommandInterceptor[] interceptors = INTERCEPTORS.toArray(new CommandInterceptor[0]);
+		return new InterceptorChain(interceptors, 0, command, priority).proceed(command).getBody();
+	}
+
+	/**
+	 * Sends the command to the device after all interceptors ran
+	 */
+	private static SoapResponse send(SoapCommand command, RequestPriority priority) throws IOException {
+		String uri = "http://" + command.getIp() + ":" + SOAP_PORT + command.getEndpoint();
+		RequestBody body = RequestBody.create(MediaType.parse("application/text"), command.getBody());
+		Request request = new Request.Builder().url(uri).addHeader("Content-Type", "text/xml")
+				.addHeader("SOAPACTION", command.getService() + "#" + command.getAction()).post(body).build();
+		long start = System.nanoTime();
+		String response = execute(command.getIp(), command.getAction(), request, priority, command.isReadOnly());
+		return new SoapResponse(response, System.nanoTime() - start);
+	}
+
+	static void addInterceptor(CommandInterceptor interceptor) {
+		INTERCEPTORS.add(interceptor);
+	}
+
+	static boolean removeInterceptor(CommandInterceptor interceptor) {
+		return INTERCEPTORS.remove(interceptor);
+	}
+
+	private static final class InterceptorChain implements CommandInterceptor.Chain {
+
+		private final CommandInterceptor[] interceptors;
+		private final int index;
+		private final SoapCommand command;
+		private final RequestPriority priority;
+
+		InterceptorChain(CommandInterceptor[] interceptors, int index, SoapCommand command,
+				RequestPriority priority) {
+			this.interceptors = interceptors;
+			this.index = index;
+			this.command = command;
+			this.priority = priority;
+		}
+
+		@Override
+		public SoapCommand command() {
+			return command;
+		}
+
+		@Override
+		public SoapResponse proceed(SoapCommand command) throws IOException, SonosControllerException {
+			if (index == interceptors.length) {
+				return send(command, priority);
+			}
+			InterceptorChain next = new InterceptorChain(interceptors, index + 1, command, priority);
+			SoapResponse response = interceptors[index].intercept(next);
+			if (response == null) {
+				throw new IllegalStateException("Interceptor " + interceptors[index] + " returned null");
+			}
+			return response;
+		}
+	}
+
+	/**
+	 * @param action the name of the action
+	 * @return true if the action only reads state and can safely be retried
+	 */
+	static boolean isReadOnly(String action) {
+		return action.startsWith("Get") || action.startsWith("List") || action.equals("Browse");
+	}
+
 	protected static void handleError(String ip, String response) throws SonosControllerException {
 		if (!response.contains("errorCode")) {
 			return;
@@ -142,9 +389,27 @@ class CommandBuilder {
 		return sb.toString();
 	}
 
-	private static OkHttpClient getHttpClient() {
+	/**
+	 * Tracks whether a request got a connection to the device, pooled or newly
+	 * established, before it failed
+	 */
+	private static final class ConnectPhase extends EventListener {
+
+		private volatile boolean connected;
+
+		@Override
+		public void connectionAcquired(Call call, Connection connection) {
+			connected = true;
+		}
+	}
+
+	private static synchronized OkHttpClient getHttpClient() {
 		if (httpClient == null) {
-			httpClient = new OkHttpClient();
+			// The default pool only keeps 5 idle connections which is less than the
+			// number of speakers in many households
+			httpClient = new OkHttpClient.Builder()
+					.connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+					.build();
 		}
 		return httpClient;
 	}
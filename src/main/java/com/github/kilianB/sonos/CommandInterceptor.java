@@ -0,0 +1,63 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+
+import com.github.kilianB.exception.SonosControllerException;
+
+/**
+ * Hook around the execution of every SOAP command sent to a device, e.g. to
+ * collect metrics, trace, cache or stub responses. Interceptors are registered
+ * globally via {@link SonosDevice#addCommandInterceptor(CommandInterceptor)}
+ * and invoked in registration order. Each interceptor either calls
+ * {@link Chain#proceed(SoapCommand)} to pass the command on or returns a
+ * response on its own.
+ *
+ * <pre>
+ * SonosDevice.addCommandInterceptor(chain -&gt; {
+ * 	SoapResponse response = chain.proceed(chain.command());
+ * 	System.out.println(chain.command().getAction() + " took " + response.getLatency(TimeUnit.MILLISECONDS));
+ * 	return response;
+ * });
+ * </pre>
+ *
+ * Interceptors are invoked once per command. Retries, request priorities and
+ * the circuit breaker apply after the last interceptor passed the command on.
+ *
+ * @author Kilian
+ *
+ */
+@FunctionalInterface
+public interface CommandInterceptor {
+
+	/**
+	 * @param chain the chain giving access to the command and the next
+	 *              interceptor
+	 * @return the response of the device
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	SoapResponse intercept(Chain chain) throws IOException, SonosControllerException;
+
+	/**
+	 * The remaining interceptors and the http transport.
+	 */
+	interface Chain {
+
+		/**
+		 * @return the command to execute
+		 */
+		SoapCommand command();
+
+		/**
+		 * Pass the command on to the next interceptor or send it to the device.
+		 *
+		 * @param command the command to execute. Usually {@link #command()}
+		 * @return the response of the device
+		 * @throws IOException              IOException during HTTP Client
+		 *                                  operation . Sending the command.
+		 * @throws SonosControllerException UPnP Error returned by the device
+		 */
+		SoapResponse proceed(SoapCommand command) throws IOException, SonosControllerException;
+	}
+}
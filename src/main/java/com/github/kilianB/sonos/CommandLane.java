@@ -0,0 +1,89 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.github.kilianB.exception.SonosControllerException;
+
+/**
+ * Conflating lane for commands which only care about the latest value, e.g. a
+ * volume slider. At most one request is in flight. Values submitted in the
+ * meantime replace each other and only the latest one is sent once the
+ * request in flight finished.
+ *
+ * @author Kilian
+ *
+ * @param <T> the value type of the command
+ */
+final class CommandLane<T> {
+
+	/**
+	 * Sends a single value to the device
+	 */
+	@FunctionalInterface
+	interface Sender<T> {
+		void send(T value) throws IOException, SonosControllerException;
+	}
+
+	private final Sender<T> sender;
+	private final Executor executor;
+
+	/** Guarded by this */
+	private boolean inFlight;
+	private T pending;
+	private CompletableFuture<Void> pendingFuture;
+
+	CommandLane(Sender<T> sender, Executor executor) {
+		this.sender = sender;
+		this.executor = executor;
+	}
+
+	/**
+	 * Submit a new value.
+	 *
+	 * @param value the value to send
+	 * @return a future completing once this value or a value superseding it was
+	 *         applied by the device
+	 */
+	synchronized CompletableFuture<Void> submit(T value) {
+		if (!inFlight) {
+			inFlight = true;
+			CompletableFuture<Void> future = new CompletableFuture<>();
+			dispatch(value, future);
+			return future;
+		}
+		// Replace the pending value. Superseded callers share the future of the
+		// value replacing theirs
+		pending = value;
+		if (pendingFuture == null) {
+			pendingFuture = new CompletableFuture<>();
+		}
+		return pendingFuture;
+	}
+
+	private void dispatch(T value, CompletableFuture<Void> future) {
+		executor.execute(() -> {
+			try {
+				sender.send(value);
+				future.complete(null);
+			} catch (Exception e) {
+				future.completeExceptionally(e);
+			} finally {
+				next();
+			}
+		});
+	}
+
+	private synchronized void next() {
+		if (pendingFuture != null) {
+			CompletableFuture<Void> future = pendingFuture;
+			T value = pending;
+			pendingFuture = null;
+			pending = null;
+			dispatch(value, future);
+		} else {
+			inFlight = false;
+		}
+	}
+}
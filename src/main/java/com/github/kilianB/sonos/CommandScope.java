@@ -0,0 +1,165 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.github.kilianB.exception.CommandCancelledException;
+import com.github.kilianB.exception.DeadlineExceededException;
+import com.github.kilianB.exception.SonosControllerException;
+
+import okhttp3.Call;
+
+/**
+ * Deadline and cancellation state shared by all requests issued while
+ * executing a single operation. The scope is bound to the executing thread and
+ * picked up by {@link CommandBuilder}, which limits the timeout of each request
+ * to the remaining time and cancels in flight calls once the scope is
+ * cancelled.
+ *
+ * @author Kilian
+ *
+ */
+final class CommandScope {
+
+	private static final ThreadLocal<CommandScope> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Deadline in {@link System#nanoTime()} or 0 if the scope has no deadline
+	 */
+	private final long deadline;
+
+	private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean cancelled;
+
+	private CommandScope(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Execute the call asynchronously within a new scope.
+	 *
+	 * @param call     the call to execute
+	 * @param timeout  the deadline relative to now. A value {@literal <}= 0 only
+	 *                 allows to cancel the call
+	 * @param unit     the time unit of the timeout
+	 * @param executor the executor to run the call on
+	 * @return a future completing with the result of the call. Cancelling the
+	 *         future cancels requests in flight. If the deadline passes the future
+	 *         completes exceptionally with a {@link DeadlineExceededException}
+	 */
+	static <T> CompletableFuture<T> supply(Async.DeviceCall<T> call, long timeout, TimeUnit unit,
+			Executor executor) {
+		CommandScope scope = new CommandScope(timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : 0);
+		CompletableFuture<T> future = Async.supply(() -> runWithin(scope, call), executor);
+		ScheduledFuture<?> expiry = null;
+		if (timeout > 0) {
+			expiry = EventCondition.SCHEDULER.schedule(() -> {
+				if (future.completeExceptionally(new DeadlineExceededException("Deadline exceeded"))) {
+					scope.cancel();
+				}
+			}, timeout, unit);
+		}
+		ScheduledFuture<?> scheduledExpiry = expiry;
+		future.whenComplete((value, exception) -> {
+			if (future.isCancelled()) {
+				scope.cancel();
+			}
+			if (scheduledExpiry != null) {
+				scheduledExpiry.cancel(false);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * @return the scope bound to the current thread or null
+	 */
+	static CommandScope current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Execute the call on the current thread with the scope bound.
+	 *
+	 * @param scope the scope to bind. May be null
+	 * @param call  the call to execute
+	 * @return the result of the call
+	 */
+	static <T> T runWithin(CommandScope scope, Async.DeviceCall<T> call)
+			throws IOException, SonosControllerException {
+		CommandScope previous = CURRENT.get();
+		CURRENT.set(scope);
+		try {
+			return call.call();
+		} finally {
+			CURRENT.set(previous);
+		}
+	}
+
+	void cancel() {
+		cancelled = true;
+		for (Call call : calls) {
+			call.cancel();
+		}
+	}
+
+	/**
+	 * @return true if the scope was cancelled or the deadline passed
+	 */
+	boolean isDone() {
+		return cancelled || (deadline != 0 && System.nanoTime() - deadline >= 0);
+	}
+
+	/**
+	 * @return the remaining time in milliseconds or {@link Long#MAX_VALUE} if the
+	 *         scope has no deadline
+	 */
+	long remainingMillis() {
+		if (deadline == 0) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+	}
+
+	/**
+	 * Throw if no further requests may be sent within this scope
+	 *
+	 * @param ip the ip of the device. Used for the exception message
+	 * @throws CommandCancelledException if the scope was cancelled or the deadline
+	 *                                   passed
+	 */
+	void check(String ip) throws CommandCancelledException {
+		if (isDone()) {
+			throw exception(ip);
+		}
+	}
+
+	/**
+	 * @param ip the ip of the device. Used for the exception message
+	 * @return the exception describing why the scope is done
+	 */
+	CommandCancelledException exception(String ip) {
+		if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+			return new DeadlineExceededException("Deadline exceeded for command to " + ip);
+		}
+		return new CommandCancelledException("Command to " + ip + " was cancelled");
+	}
+
+	void register(Call call) {
+		calls.add(call);
+		// Cancelled while registering
+		if (cancelled) {
+			call.cancel();
+		}
+	}
+
+	void unregister(Call call) {
+		calls.remove(call);
+	}
+}
@@ -0,0 +1,257 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+import com.github.kilianB.StringUtil;
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.sonos.model.ActionArgument;
+import com.github.kilianB.sonos.model.ActionDescription;
+import com.github.kilianB.sonos.model.ServiceDescription;
+import com.github.kilianB.sonos.model.StateVariable;
+
+/**
+ * Action of a service description prepared for repeated invocation. The
+ * envelope fragments, argument order, value converters and output tags are
+ * computed once per action and shared by all devices of the same model.
+ *
+ * @author Kilian
+ *
+ */
+final class CompiledAction {
+
+	/**
+	 * Action descriptions are shared per model and software version by the
+	 * {@link ServiceCatalog} and therefore identify the compiled action
+	 */
+	private static final ConcurrentHashMap<ActionDescription, CompiledAction> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * Converts the text of an argument to its java representation
+	 */
+	private enum Type {
+		STRING, INTEGER, LONG, DOUBLE, BOOLEAN;
+
+		static Type of(StateVariable variable) {
+			if (variable == null || variable.getDataType() == null) {
+				return STRING;
+			}
+			switch (variable.getDataType()) {
+			case "ui1":
+			case "ui2":
+			case "i1":
+			case "i2":
+			case "i4":
+			case "int":
+				return INTEGER;
+			case "ui4":
+				return LONG;
+			case "r4":
+			case "r8":
+			case "number":
+			case "float":
+				return DOUBLE;
+			case "boolean":
+				return BOOLEAN;
+			default:
+				return STRING;
+			}
+		}
+
+		Object decode(String value) {
+			if (value.isEmpty() && this != STRING) {
+				return null;
+			}
+			switch (this) {
+			case INTEGER:
+				return Integer.valueOf(value);
+			case LONG:
+				return Long.valueOf(value);
+			case DOUBLE:
+				return Double.valueOf(value);
+			case BOOLEAN:
+				return value.equals("1") || value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes");
+			default:
+				return value;
+			}
+		}
+
+		String encode(Object value) {
+			if (this == BOOLEAN && value instanceof Boolean) {
+				return (Boolean) value ? "1" : "0";
+			}
+			return value.toString();
+		}
+	}
+
+	private final String endpoint;
+	private final String service;
+	private final String action;
+	private final boolean readOnly;
+
+	/** Envelope up to the first argument */
+	private final String prefix;
+	/** Envelope after the last argument */
+	private final String suffix;
+
+	private final String[] inputs;
+	private final Type[] inputTypes;
+	private final List<List<String>> allowedValues;
+
+	private final String[] outputs;
+	private final Type[] outputTypes;
+	private final String[] outputOpen;
+	private final String[] outputClose;
+
+	/** Length of the static parts of the envelope */
+	private final int envelopeLength;
+
+	private CompiledAction(ServiceDescription service, ActionDescription action) {
+		this.endpoint = service.getControlURL();
+		this.service = service.getServiceType();
+		this.action = action.getName();
+		this.readOnly = CommandBuilder.isReadOnly(this.action);
+		this.prefix = "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\""
+				+ " s:encodingStyle=\"http://schemas.xmlsoap.org/soap/encoding/\"><s:Body>" + "<u:" + this.action
+				+ " xmlns:u=\"" + this.service + "\">";
+		this.suffix = "</u:" + this.action + "></s:Body></s:Envelope>";
+
+		List<ActionArgument> in = action.getInputs();
+		inputs = new String[in.size()];
+		inputTypes = new Type[in.size()];
+		allowedValues = new ArrayList<>(in.size());
+		int length = prefix.length() + suffix.length();
+		for (int i = 0; i < inputs.length; i++) {
+			ActionArgument argument = in.get(i);
+			inputs[i] = argument.getName();
+			inputTypes[i] = Type.of(argument.getRelatedStateVariable());
+			allowedValues.add(argument.getRelatedStateVariable() == null ? Collections.emptyList()
+					: argument.getRelatedStateVariable().getAllowedValues());
+			length += inputs[i].length() * 2 + 5;
+		}
+		envelopeLength = length;
+
+		List<ActionArgument> out = action.getOutputs();
+		outputs = new String[out.size()];
+		outputTypes = new Type[out.size()];
+		outputOpen = new String[out.size()];
+		outputClose = new String[out.size()];
+		for (int i = 0; i < outputs.length; i++) {
+			ActionArgument argument = out.get(i);
+			outputs[i] = argument.getName();
+			outputTypes[i] = Type.of(argument.getRelatedStateVariable());
+			outputOpen[i] = "<" + outputs[i] + ">";
+			outputClose[i] = "</" + outputs[i] + ">";
+		}
+	}
+
+	/**
+	 * @param service the service declaring the action
+	 * @param action  the action
+	 * @return the compiled action
+	 */
+	static CompiledAction of(ServiceDescription service, ActionDescription action) {
+		return CACHE.computeIfAbsent(action, key -> new CompiledAction(service, key));
+	}
+
+	/**
+	 * Invoke the action.
+	 *
+	 * @param ip        the ip of the device
+	 * @param arguments the input arguments by name. {@code InstanceID} defaults to
+	 *                  0 if omitted
+	 * @return the output arguments by name in declaration order
+	 * @throws IOException              IOException during HTTP Client operation .
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 * @throws IllegalArgumentException if an argument is missing, unknown or not
+	 *                                  allowed by the service description
+	 */
+	Map<String, Object> invoke(String ip, Map<String, ?> arguments) throws IOException, SonosControllerException {
+		LinkedHashMap<String, String> encoded = encode(arguments);
+		StringBuilder envelope = new StringBuilder(envelopeLength + 64);
+		envelope.append(prefix);
+		for (Map.Entry<String, String> entry : encoded.entrySet()) {
+			envelope.append('<').append(entry.getKey()).append('>').append(entry.getValue()).append("</")
+					.append(entry.getKey()).append('>');
+		}
+		envelope.append(suffix);
+		RequestPriority priority = readOnly ? RequestPriority.NORMAL : RequestPriority.INTERACTIVE;
+		String response = CommandBuilder.executeEnvelope(ip, endpoint, service, action, encoded, envelope.toString(),
+				readOnly, priority);
+		CommandBuilder.handleError(ip, response);
+		return decode(response);
+	}
+
+	/**
+	 * Validate and escape the input arguments in declaration order
+	 */
+	private LinkedHashMap<String, String> encode(Map<String, ?> arguments) {
+		int matched = 0;
+		LinkedHashMap<String, String> encoded = new LinkedHashMap<>();
+		for (int i = 0; i < inputs.length; i++) {
+			Object value = arguments.get(inputs[i]);
+			if (value == null) {
+				if (!inputs[i].equals("InstanceID")) {
+					throw new IllegalArgumentException("Missing argument " + inputs[i] + " for action " + action);
+				}
+				value = 0;
+			} else {
+				matched++;
+			}
+			String text = inputTypes[i].encode(value);
+			List<String> allowed = allowedValues.get(i);
+			if (!allowed.isEmpty() && !allowed.contains(text)) {
+				throw new IllegalArgumentException("Value " + text + " of argument " + inputs[i]
+						+ " is not allowed. Allowed values: " + allowed);
+			}
+			if (!StringUtil.isEscaped(text)) {
+				text = StringEscapeUtils.escapeXml11(text);
+			}
+			encoded.put(inputs[i], text);
+		}
+		if (matched != arguments.size()) {
+			for (String name : arguments.keySet()) {
+				if (!encoded.containsKey(name)) {
+					throw new IllegalArgumentException("Unknown argument " + name + " for action " + action);
+				}
+			}
+		}
+		return encoded;
+	}
+
+	/**
+	 * Extract the output arguments. Outputs are returned in declaration order,
+	 * therefore a single forward pass over the response suffices.
+	 */
+	private Map<String, Object> decode(String response) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		int position = 0;
+		for (int i = 0; i < outputs.length; i++) {
+			int start = response.indexOf(outputOpen[i], position);
+			if (start < 0) {
+				// Out of order or missing. Fall back to a search of the entire response
+				start = response.indexOf(outputOpen[i]);
+			}
+			if (start < 0) {
+				result.put(outputs[i], null);
+				continue;
+			}
+			start += outputOpen[i].length();
+			int end = response.indexOf(outputClose[i], start);
+			if (end < 0) {
+				result.put(outputs[i], null);
+				continue;
+			}
+			position = end + outputClose[i].length();
+			result.put(outputs[i], outputTypes[i].decode(StringEscapeUtils.unescapeXml(response.substring(start, end))));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+}
@@ -0,0 +1,98 @@
+package com.github.kilianB.sonos;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.kilianB.sonos.model.ConfirmationLatency;
+
+/**
+ * Records the time between sending a write and the event confirming it, per
+ * action of a single device.
+ *
+ * @author Kilian
+ *
+ */
+final class ConfirmationTracker {
+
+	private static final int SAMPLE_SIZE = 64;
+
+	private static class Samples {
+		/** Guarded by this */
+		private final long[] latencies = new long[SAMPLE_SIZE];
+		private int sampleCount;
+		private int sampleIndex;
+		private long confirmed;
+		private long timeouts;
+		private long unchanged;
+		private long last = -1;
+
+		synchronized void record(long latencyMillis) {
+			latencies[sampleIndex] = latencyMillis;
+			sampleIndex = (sampleIndex + 1) % SAMPLE_SIZE;
+			if (sampleCount < SAMPLE_SIZE) {
+				sampleCount++;
+			}
+			confirmed++;
+			last = latencyMillis;
+		}
+
+		synchronized void recordTimeout() {
+			timeouts++;
+		}
+
+		synchronized void recordUnchanged() {
+			unchanged++;
+		}
+
+		synchronized ConfirmationLatency snapshot(String action) {
+			long median = -1;
+			long p99 = -1;
+			if (sampleCount > 0) {
+				long[] sorted = Arrays.copyOf(latencies, sampleCount);
+				Arrays.sort(sorted);
+				median = sorted[(sampleCount - 1) / 2];
+				p99 = sorted[(int) Math.ceil(sampleCount * 0.99) - 1];
+			}
+			return new ConfirmationLatency(action, confirmed, timeouts, unchanged, last, median, p99);
+		}
+	}
+
+	private final ConcurrentHashMap<String, Samples> actions = new ConcurrentHashMap<>();
+
+	/**
+	 * @param action        the action which was confirmed
+	 * @param latencyMillis the time between sending the action and the
+	 *                      confirmation
+	 */
+	void record(String action, long latencyMillis) {
+		actions.computeIfAbsent(action, key -> new Samples()).record(latencyMillis);
+	}
+
+	/**
+	 * @param action the action which was not confirmed in time
+	 */
+	void recordTimeout(String action) {
+		actions.computeIfAbsent(action, key -> new Samples()).recordTimeout();
+	}
+
+	/**
+	 * @param action the action which wrote a value the device already had
+	 */
+	void recordUnchanged(String action) {
+		actions.computeIfAbsent(action, key -> new Samples()).recordUnchanged();
+	}
+
+	/**
+	 * @return the latencies of all actions confirmed so far by action name
+	 */
+	Map<String, ConfirmationLatency> getLatencies() {
+		Map<String, ConfirmationLatency> result = new TreeMap<>();
+		for (Map.Entry<String, Samples> entry : actions.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+}
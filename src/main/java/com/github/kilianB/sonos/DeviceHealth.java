@@ -0,0 +1,226 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.github.kilianB.exception.CircuitOpenException;
+import com.github.kilianB.sonos.model.CircuitState;
+import com.github.kilianB.sonos.model.TransportMetrics;
+
+/**
+ * Tracks latency and failures of the requests sent to a single device. Derives
+ * the request timeout of every action from its observed latency and trips a
+ * circuit breaker once the device keeps failing to answer, so callers fail fast
+ * instead of waiting for a timeout on every request.
+ *
+ * @author Kilian
+ *
+ */
+final class DeviceHealth {
+
+	/**
+	 * Timeout used until enough latency samples were collected. Matches the
+	 * OkHttp default
+	 */
+	static final long DEFAULT_TIMEOUT = 10_000;
+
+	/**
+	 * Lower bound for the adaptive timeout. Sonos devices occasionally stall for a
+	 * few hundred ms while switching sources
+	 */
+	static final long MIN_TIMEOUT = 1_000;
+
+	/**
+	 * Factor applied to the observed p99 latency
+	 */
+	private static final int TIMEOUT_FACTOR = 4;
+
+	private static final int SAMPLE_SIZE = 128;
+	private static final int MIN_SAMPLES = 20;
+
+	/**
+	 * Consecutive failures tripping the breaker
+	 */
+	static final int FAILURE_THRESHOLD = 5;
+
+	/**
+	 * Time the breaker stays open before a trial request is allowed
+	 */
+	static final long COOLING_OFF = TimeUnit.SECONDS.toNanos(30);
+
+	/**
+	 * Retries of idempotent read requests
+	 */
+	static final int MAX_RETRIES = 2;
+
+	private static final long RETRY_BASE_DELAY = 100;
+
+	private static final ConcurrentHashMap<String, DeviceHealth> DEVICES = new ConcurrentHashMap<>();
+
+	/**
+	 * Latencies and derived timeout of a single action. Small reads and large
+	 * browse pages or downloads differ by orders of magnitude, therefore every
+	 * action learns its own timeout. Guarded by the owning health tracker
+	 */
+	private static class Latency {
+		private final long[] latencies = new long[SAMPLE_SIZE];
+		private int sampleCount;
+		private int sampleIndex;
+		private long timeout = DEFAULT_TIMEOUT;
+		private long p99 = -1;
+
+		void record(long latencyMillis) {
+			latencies[sampleIndex] = latencyMillis;
+			sampleIndex = (sampleIndex + 1) % SAMPLE_SIZE;
+			if (sampleCount < SAMPLE_SIZE) {
+				sampleCount++;
+			}
+			if (sampleCount >= MIN_SAMPLES) {
+				long[] sorted = Arrays.copyOf(latencies, sampleCount);
+				Arrays.sort(sorted);
+				p99 = sorted[(int) Math.ceil(sampleCount * 0.99) - 1];
+				timeout = Math.min(DEFAULT_TIMEOUT, Math.max(MIN_TIMEOUT, p99 * TIMEOUT_FACTOR));
+			}
+		}
+
+		/**
+		 * The response took longer than the learned timeout. Back off until new
+		 * samples are collected
+		 */
+		void recordTimeout() {
+			timeout = Math.min(DEFAULT_TIMEOUT, timeout * 2);
+		}
+	}
+
+	/** Guarded by this. Action or downloaded path -&gt; latencies */
+	private final HashMap<String, Latency> actions = new HashMap<>();
+	/** Guarded by this. Latencies of all actions */
+	private final Latency overall = new Latency();
+
+	private CircuitState state = CircuitState.CLOSED;
+	private long openedAt;
+	private boolean trialInFlight;
+	private int consecutiveFailures;
+
+	private long requests;
+	private long failures;
+	private long retries;
+
+	/**
+	 * @param ip the ip of the device
+	 * @return the health tracker of the device
+	 */
+	static DeviceHealth of(String ip) {
+		return DEVICES.computeIfAbsent(ip, key -> new DeviceHealth());
+	}
+
+	/**
+	 * Check if a request may be sent.
+	 *
+	 * @param ip the ip of the device. Used for the exception message
+	 * @throws CircuitOpenException if the breaker is open
+	 */
+	synchronized void beforeRequest(String ip) throws CircuitOpenException {
+		if (state == CircuitState.OPEN) {
+			if (System.nanoTime() - openedAt < COOLING_OFF) {
+				throw new CircuitOpenException("Device " + ip + " is not responding. Circuit open");
+			}
+			state = CircuitState.HALF_OPEN;
+		}
+		if (state == CircuitState.HALF_OPEN) {
+			if (trialInFlight) {
+				throw new CircuitOpenException("Device " + ip + " is not responding. Awaiting trial request");
+			}
+			trialInFlight = true;
+		}
+		requests++;
+	}
+
+	/**
+	 * @param action        the action or path of the request
+	 * @param latencyMillis the latency of the request
+	 */
+	synchronized void recordSuccess(String action, long latencyMillis) {
+		latency(action).record(latencyMillis);
+		overall.record(latencyMillis);
+		consecutiveFailures = 0;
+		trialInFlight = false;
+		state = CircuitState.CLOSED;
+	}
+
+	/**
+	 * Record a failed request. Only failures to reach the device count towards
+	 * the circuit breaker. A read timeout means the device accepted the request
+	 * but the action took longer than its learned timeout.
+	 *
+	 * @param action    the action or path of the request
+	 * @param exception the cause of the failure
+	 * @param connected true if the request got a connection to the device before
+	 *                  it failed
+	 */
+	synchronized void recordFailure(String action, IOException exception, boolean connected) {
+		failures++;
+		trialInFlight = false;
+		// Connect timeouts are socket timeouts as well, classify by the failed phase
+		if (connected && exception instanceof SocketTimeoutException) {
+			latency(action).recordTimeout();
+			return;
+		}
+		consecutiveFailures++;
+		if (state == CircuitState.HALF_OPEN || consecutiveFailures >= FAILURE_THRESHOLD) {
+			state = CircuitState.OPEN;
+			openedAt = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Record a request aborted by the caller. Neither counts as success nor as
+	 * failure of the device
+	 */
+	synchronized void recordAborted() {
+		trialInFlight = false;
+	}
+
+	/**
+	 * Record a retry and compute the jittered delay before the retry is sent.
+	 *
+	 * @param attempt the number of the retry starting at 1
+	 * @return the delay in milliseconds
+	 */
+	synchronized long recordRetry(int attempt) {
+		retries++;
+		long delay = RETRY_BASE_DELAY << (attempt - 1);
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay + 1);
+	}
+
+	synchronized boolean isOpen() {
+		return state == CircuitState.OPEN;
+	}
+
+	/**
+	 * @param action the action or path of the request
+	 * @return the timeout in milliseconds applied to the next request
+	 */
+	synchronized long getTimeout(String action) {
+		return latency(action).timeout;
+	}
+
+	private Latency latency(String action) {
+		return actions.computeIfAbsent(action, key -> new Latency());
+	}
+
+	synchronized TransportMetrics getMetrics() {
+		Map<String, Long> timeouts = new TreeMap<>();
+		for (Map.Entry<String, Latency> entry : actions.entrySet()) {
+			timeouts.put(entry.getKey(), entry.getValue().timeout);
+		}
+		return new TransportMetrics(state, requests, failures, retries, consecutiveFailures, overall.p99, timeouts);
+	}
+}
@@ -0,0 +1,26 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+
+import com.github.kilianB.exception.SonosControllerException;
+
+/**
+ * An operation executed on a single device as part of a household wide
+ * command.
+ *
+ * @author Kilian
+ * @param <T> the result of the operation
+ * @see Household
+ */
+@FunctionalInterface
+public interface DeviceOperation<T> {
+
+	/**
+	 * @param device the device to execute the operation on
+	 * @return the result of the operation or null
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	T apply(SonosDevice device) throws IOException, SonosControllerException;
+}
@@ -0,0 +1,457 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.github.kilianB.exception.CommandCancelledException;
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.sonos.listener.SonosEventAdapter;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
+
+/**
+ * Opt-in outbox for state setting commands. Commands are sent right away if
+ * the device is reachable, commands of the same attribute one after another so
+ * the latest value always ends up on the device. If the device can not be
+ * reached they are held back and compacted, only the latest value of every
+ * attribute is kept. Once the device is reachable again the remaining commands
+ * are sent in one burst.
+ * <p>
+ * The device is probed periodically while commands are pending. Additionally
+ * the outbox can {@link #observe(SonosDevice) observe} the topology of another
+ * device to flush as soon as the device rejoins the household.
+ *
+ * <pre>
+ * DeviceOutbox outbox = device.getOutbox();
+ * outbox.setVolume(20);
+ * outbox.join(livingRoomUID);
+ * </pre>
+ *
+ * @author Kilian
+ *
+ */
+public class DeviceOutbox {
+
+	private static final Logger LOGGER = Logger.getLogger(DeviceOutbox.class.getName());
+
+	/**
+	 * Interval in which an unreachable device is probed by resending the pending
+	 * commands
+	 */
+	private static final long PROBE_INTERVAL = 5000;
+
+	/**
+	 * A single state setting command
+	 */
+	@FunctionalInterface
+	private interface Command {
+		void send() throws IOException, SonosControllerException;
+	}
+
+	/**
+	 * The latest held back command of an attribute. Callers of superseded
+	 * commands wait for the command replacing theirs
+	 */
+	private static class Pending {
+		private final long sequence;
+		private final Command command;
+		private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+
+		Pending(long sequence, Command command) {
+			this.sequence = sequence;
+			this.command = command;
+		}
+
+		void complete() {
+			waiters.forEach(waiter -> waiter.complete(null));
+		}
+
+		void completeExceptionally(Throwable exception) {
+			waiters.forEach(waiter -> waiter.completeExceptionally(exception));
+		}
+	}
+
+	private final SonosDevice device;
+
+	/** Guarded by this. Attribute -> latest command */
+	private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+	/** Guarded by this. Attributes with a command in flight */
+	private final HashSet<String> inFlight = new HashSet<>();
+	/** Guarded by this. Attribute -> latest command waiting for the one in flight */
+	private final HashMap<String, Pending> queued = new HashMap<>();
+	/** Guarded by this. Attribute -> sequence of the latest applied command */
+	private final HashMap<String, Long> applied = new HashMap<>();
+	private long sequence;
+	private boolean flushing;
+	private ScheduledFuture<?> probe;
+
+	DeviceOutbox(SonosDevice device) {
+		this.device = device;
+	}
+
+	/**
+	 * @param volume A volume value between 0 and 100
+	 * @return a future completing once the volume or a newer value was applied
+	 * @see SonosDevice#setVolume(int)
+	 */
+	public CompletableFuture<Void> setVolume(int volume) {
+		return submit("volume", () -> device.setVolume(volume));
+	}
+
+	/**
+	 * @param state True to mute, False to unmute
+	 * @return a future completing once the mute state or a newer value was applied
+	 * @see SonosDevice#setMute(boolean)
+	 */
+	public CompletableFuture<Void> setMute(boolean state) {
+		return submit("mute", () -> device.setMute(state));
+	}
+
+	/**
+	 * @param bass Value between 10 and -10
+	 * @return a future completing once the bass or a newer value was applied
+	 * @see SonosDevice#setBass(int)
+	 */
+	public CompletableFuture<Void> setBass(int bass) {
+		if (bass > 10 || bass < -10) {
+			throw new IllegalArgumentException("Bass value need to be between 10 and -10");
+		}
+		return submit("bass", () -> device.setBass(bass));
+	}
+
+	/**
+	 * @param treble value between -10 and 10
+	 * @return a future completing once the treble or a newer value was applied
+	 * @see SonosDevice#setTreble(int)
+	 */
+	public CompletableFuture<Void> setTreble(int treble) {
+		if (treble > 10 || treble < -10) {
+			throw new IllegalArgumentException("treble value need to be between 10 and -10");
+		}
+		return submit("treble", () -> device.setTreble(treble));
+	}
+
+	/**
+	 * @param loudness True for set On, False for set Off
+	 * @return a future completing once the loudness or a newer value was applied
+	 * @see SonosDevice#setLoudness(boolean)
+	 */
+	public CompletableFuture<Void> setLoudness(boolean loudness) {
+		return submit("loudness", () -> device.setLoudness(loudness));
+	}
+
+	/**
+	 * @param state new night mode
+	 * @return a future completing once the night mode or a newer value was
+	 *         applied
+	 * @see SonosDevice#setNightMode(boolean)
+	 */
+	public CompletableFuture<Void> setNightMode(boolean state) {
+		return submit("nightMode", () -> device.setNightMode(state));
+	}
+
+	/**
+	 * @param state new dialog mode
+	 * @return a future completing once the dialog mode or a newer value was
+	 *         applied
+	 * @see SonosDevice#setDialogMode(boolean)
+	 */
+	public CompletableFuture<Void> setDialogMode(boolean state) {
+		return submit("dialogMode", () -> device.setDialogMode(state));
+	}
+
+	/**
+	 * @param state True to turn the led on, False to turn it off
+	 * @return a future completing once the led state or a newer value was applied
+	 * @see SonosDevice#setLedState(boolean)
+	 */
+	public CompletableFuture<Void> setLedState(boolean state) {
+		return submit("led", () -> device.setLedState(state));
+	}
+
+	/**
+	 * @param masterUID the uid of the group coordinator to join
+	 * @return a future completing once the device joined or a newer group command
+	 *         was applied
+	 * @see SonosDevice#join(String)
+	 */
+	public CompletableFuture<Void> join(String masterUID) {
+		return submit("group", () -> device.join(masterUID));
+	}
+
+	/**
+	 * @return a future completing once the device left its group or a newer group
+	 *         command was applied
+	 * @see SonosDevice#unjoin()
+	 */
+	public CompletableFuture<Void> unjoin() {
+		return submit("group", () -> device.unjoin());
+	}
+
+	/**
+	 * @return the number of attributes with held back commands
+	 */
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Discard all held back commands. Their futures complete exceptionally with a
+	 * {@link CommandCancelledException}
+	 */
+	public void clear() {
+		List<Pending> discarded;
+		synchronized (this) {
+			discarded = new ArrayList<>(pending.values());
+			pending.clear();
+			stopProbe();
+		}
+		CommandCancelledException exception = new CommandCancelledException("Outbox was cleared");
+		discarded.forEach(p -> p.completeExceptionally(exception));
+	}
+
+	/**
+	 * Flush the outbox as soon as the device shows up in the topology of the
+	 * given device, e.g. after a reboot.
+	 *
+	 * @param registry a device subscribed to topology events of the household
+	 */
+	public void observe(SonosDevice registry) {
+		registry.registerSonosEventListener(new SonosEventAdapter() {
+			@Override
+			public void memberOnline(ZoneGroupMember member) {
+				if (member.getIpAddress().equals(device.getIpAddress())) {
+					flushAsync();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Try to send all held back commands now. Stops at the first command failing
+	 * because the device is still unreachable.
+	 */
+	public void flush() {
+		List<Map.Entry<String, Pending>> batch;
+		synchronized (this) {
+			if (flushing) {
+				return;
+			}
+			if (pending.isEmpty()) {
+				// Everything was applied by commands sent in the meantime
+				stopProbe();
+				return;
+			}
+			flushing = true;
+			batch = new ArrayList<>();
+			for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+				batch.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+			}
+			pending.clear();
+		}
+		int sent = 0;
+		boolean reachable = false;
+		try {
+			for (; sent < batch.size(); sent++) {
+				String attribute = batch.get(sent).getKey();
+				Pending p = batch.get(sent).getValue();
+				synchronized (this) {
+					if (inFlight.contains(attribute)) {
+						// Sent after the command in flight for the same attribute
+						enqueue(attribute, p);
+						continue;
+					}
+					inFlight.add(attribute);
+				}
+				boolean delivered = send(attribute, p);
+				synchronized (this) {
+					release(attribute, delivered);
+					if (!delivered) {
+						// Still unreachable. Keep this and all following commands
+						for (Map.Entry<String, Pending> remaining : batch.subList(sent, batch.size())) {
+							hold(remaining.getKey(), remaining.getValue());
+						}
+						return;
+					}
+				}
+			}
+			reachable = true;
+		} finally {
+			synchronized (this) {
+				flushing = false;
+				if (pending.isEmpty()) {
+					stopProbe();
+				} else if (reachable) {
+					// Commands submitted while flushing
+					flushAsync();
+				}
+			}
+		}
+		LOGGER.fine("Flushed " + sent + " commands to " + device.getIpAddress());
+	}
+
+	private void flushAsync() {
+		Async.POOL.execute(this::flush);
+	}
+
+	private CompletableFuture<Void> submit(String attribute, Command command) {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		synchronized (this) {
+			Pending p = new Pending(++sequence, command);
+			p.waiters.add(future);
+			if (!pending.isEmpty() || flushing) {
+				// The device is presumed unreachable. Do not wait for another timeout
+				hold(attribute, p);
+			} else if (inFlight.contains(attribute)) {
+				enqueue(attribute, p);
+			} else {
+				inFlight.add(attribute);
+				dispatch(attribute, p);
+			}
+		}
+		return future;
+	}
+
+	/**
+	 * Send the command of an attribute in the background. Guarded by this
+	 */
+	private void dispatch(String attribute, Pending p) {
+		Async.POOL.execute(() -> {
+			boolean delivered = send(attribute, p);
+			synchronized (this) {
+				if (!delivered) {
+					hold(attribute, p);
+				}
+				release(attribute, delivered);
+			}
+		});
+	}
+
+	/**
+	 * Send a command unless a newer value of the attribute was applied already.
+	 *
+	 * @return false if the device is unreachable and the command has to be held
+	 *         back, true if the command is done
+	 */
+	private boolean send(String attribute, Pending p) {
+		synchronized (this) {
+			if (isSuperseded(attribute, p)) {
+				p.complete();
+				return true;
+			}
+		}
+		try {
+			p.command.send();
+		} catch (CommandCancelledException e) {
+			p.completeExceptionally(e);
+			return true;
+		} catch (IOException e) {
+			return false;
+		} catch (SonosControllerException | RuntimeException e) {
+			p.completeExceptionally(e);
+			return true;
+		}
+		Pending stale;
+		synchronized (this) {
+			applied.merge(attribute, p.sequence, Math::max);
+			// An older held back value must not overwrite this one
+			stale = pending.get(attribute);
+			if (stale != null && stale.sequence < p.sequence) {
+				pending.remove(attribute);
+			} else {
+				stale = null;
+			}
+		}
+		if (stale != null) {
+			stale.complete();
+		}
+		p.complete();
+		return true;
+	}
+
+	/**
+	 * The command in flight for the attribute finished. Sends the command queued
+	 * behind it or holds it back if the device is unreachable. Guarded by this
+	 */
+	private void release(String attribute, boolean delivered) {
+		Pending next = queued.remove(attribute);
+		if (next == null) {
+			inFlight.remove(attribute);
+		} else if (!delivered || !pending.isEmpty() || flushing) {
+			inFlight.remove(attribute);
+			hold(attribute, next);
+		} else {
+			dispatch(attribute, next);
+		}
+	}
+
+	/**
+	 * Queue a command behind the command in flight for the same attribute. Last
+	 * write wins. Guarded by this
+	 */
+	private void enqueue(String attribute, Pending p) {
+		Pending existing = queued.get(attribute);
+		if (existing != null && existing.sequence > p.sequence) {
+			existing.waiters.addAll(p.waiters);
+			return;
+		}
+		if (existing != null) {
+			p.waiters.addAll(existing.waiters);
+		}
+		queued.put(attribute, p);
+	}
+
+	/**
+	 * @return true if a newer value of the attribute was applied. Guarded by this
+	 */
+	private boolean isSuperseded(String attribute, Pending p) {
+		Long last = applied.get(attribute);
+		return last != null && last > p.sequence;
+	}
+
+	/**
+	 * Hold back a command. Last write wins per attribute. Guarded by this
+	 */
+	private void hold(String attribute, Pending p) {
+		if (isSuperseded(attribute, p)) {
+			// A newer value was applied, e.g. an older command failed after a newer
+			// one succeeded
+			p.complete();
+			return;
+		}
+		Pending existing = pending.get(attribute);
+		if (existing != null && existing.sequence > p.sequence) {
+			// A newer value is already held back
+			existing.waiters.addAll(p.waiters);
+			return;
+		}
+		if (existing != null) {
+			p.waiters.addAll(existing.waiters);
+			pending.remove(attribute);
+		}
+		pending.put(attribute, p);
+		if (probe == null) {
+			probe = EventCondition.SCHEDULER.scheduleWithFixedDelay(this::flushAsync, PROBE_INTERVAL,
+					PROBE_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Guarded by this
+	 */
+	private void stopProbe() {
+		if (probe != null) {
+			probe.cancel(false);
+			probe = null;
+		}
+	}
+}
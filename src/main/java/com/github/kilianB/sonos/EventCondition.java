@@ -0,0 +1,99 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+
+import com.github.kilianB.DaemonThreadFactory;
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.sonos.listener.SonosEventAdapter;
+
+/**
+ * A condition awaiting a specific state of a sonos device. Subclasses override
+ * the event callbacks they are interested in and call {@link #complete(Object)}
+ * once the awaited state is reported by the device.
+ * <p>
+ * If the device is not subscribed to UPnP events the condition falls back to
+ * periodically invoking {@link #poll()}.
+ *
+ * @author Kilian
+ * @param <T> the value the condition resolves to
+ * @see SonosDevice#awaitCondition(EventCondition, long, java.util.concurrent.TimeUnit)
+ */
+public abstract class EventCondition<T> extends SonosEventAdapter {
+
+	/**
+	 * Scheduler used for fallback polling and timeouts of conditions
+	 */
+	static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(1,
+			new DaemonThreadFactory("EventCondition"));
+
+	/**
+	 * Interval in milliseconds between two fallback polls
+	 */
+	static final int POLL_INTERVAL = 500;
+
+	private final CompletableFuture<T> future = new CompletableFuture<>();
+
+	/**
+	 * Mark the condition as satisfied.
+	 *
+	 * @param value the value the future completes with
+	 */
+	protected void complete(T value) {
+		future.complete(value);
+	}
+
+	/**
+	 * Query the device directly whether the condition is satisfied. Only invoked
+	 * if no event subscription is active.
+	 *
+	 * @return the value to complete the condition with or null if the condition
+	 *         is not yet satisfied
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	protected abstract T poll() throws IOException, SonosControllerException;
+
+	/**
+	 * @return the future completing once the condition is satisfied
+	 */
+	public CompletableFuture<T> getFuture() {
+		return future;
+	}
+
+	/**
+	 * Block until the future completes and rethrow the exceptions usually thrown
+	 * by synchronous device calls.
+	 *
+	 * @param future the future to wait for
+	 * @return the result of the future
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device or if the
+	 *                                  future timed out
+	 * @throws InterruptedException     If the thread gets interrupted
+	 */
+	static <T> T await(CompletableFuture<T> future)
+			throws IOException, SonosControllerException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof SonosControllerException) {
+				throw (SonosControllerException) cause;
+			} else if (cause instanceof TimeoutException) {
+				throw new SonosControllerException("Condition was not satisfied in time");
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+}
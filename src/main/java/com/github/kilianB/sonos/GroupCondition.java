@@ -0,0 +1,95 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.sonos.model.ZoneGroup;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
+
+/**
+ * Awaits a grouping reported by the zone group topology. Completes with the
+ * group of the last expected member once every member is coordinated by its
+ * expected coordinator.
+ *
+ * @author Kilian
+ *
+ */
+final class GroupCondition extends EventCondition<ZoneGroup> {
+
+	/**
+	 * The device whose topology model is observed
+	 */
+	private final SonosDevice observer;
+
+	/**
+	 * Member uid -&gt; expected coordinator uid
+	 */
+	private final Map<String, String> expected;
+
+	/**
+	 * @param observer the device whose topology model is observed
+	 * @param expected member uid -&gt; expected coordinator uid. A member expected
+	 *                 to coordinate itself is standalone
+	 */
+	GroupCondition(SonosDevice observer, Map<String, String> expected) {
+		this.observer = observer;
+		this.expected = expected;
+	}
+
+	/**
+	 * @param memberUID the uid of an expected member
+	 * @return true if the topology already reports the member in the expected
+	 *         group
+	 */
+	boolean isSatisfied(String memberUID) {
+		ZoneTopology topology = observer.getZoneTopology();
+		if (!topology.isPopulated()) {
+			return false;
+		}
+		ZoneGroup group = topology.getGroupOf(memberUID);
+		return group != null && group.getCoordinatorUUID().equals(expected.get(memberUID));
+	}
+
+	/**
+	 * Complete the condition if the topology reports the expected grouping
+	 */
+	void check() {
+		ZoneGroup group = evaluate();
+		if (group != null) {
+			complete(group);
+		}
+	}
+
+	private ZoneGroup evaluate() {
+		ZoneGroup group = null;
+		for (String memberUID : expected.keySet()) {
+			if (!isSatisfied(memberUID)) {
+				return null;
+			}
+			group = observer.getZoneTopology().getGroupOf(memberUID);
+		}
+		return group;
+	}
+
+	@Override
+	public void groupJoined(ZoneGroupMember member, ZoneGroup group) {
+		check();
+	}
+
+	@Override
+	public void groupLeft(ZoneGroupMember member, ZoneGroup group) {
+		check();
+	}
+
+	@Override
+	public void coordinatorChanged(ZoneGroup group, String previousCoordinatorUUID) {
+		check();
+	}
+
+	@Override
+	protected ZoneGroup poll() throws IOException, SonosControllerException {
+		observer.refreshZoneTopology();
+		return evaluate();
+	}
+}
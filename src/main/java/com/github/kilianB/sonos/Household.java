@@ -0,0 +1,733 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.exception.UnsupportedActionException;
+import com.github.kilianB.sonos.model.DeviceCapabilities;
+import com.github.kilianB.sonos.model.DeviceReadiness;
+import com.github.kilianB.sonos.model.HandoffResult;
+import com.github.kilianB.sonos.model.HouseholdResult;
+import com.github.kilianB.sonos.model.PlayState;
+import com.github.kilianB.sonos.model.StartSkew;
+import com.github.kilianB.sonos.model.TrackInfo;
+import com.github.kilianB.sonos.model.TrackMetadata;
+import com.github.kilianB.sonos.model.ZoneGroup;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
+import com.github.kilianB.uPnPClient.UPnPDevice;
+
+/**
+ * Executes commands on multiple devices of a household concurrently with a
+ * bounded degree of parallelism.
+ * <p>
+ * Transport commands like pause or clearing the queue act on the whole group
+ * and are only sent once to each group coordinator.
+ *
+ * <pre>
+ * Household household = new Household(SonosDiscovery.discover());
+ * HouseholdResult&lt;Void&gt; result = household.pauseAll(household.getDevices());
+ * </pre>
+ *
+ * @author Kilian
+ *
+ */
+public class Household {
+
+	private static final int DEFAULT_PARALLELISM = 8;
+
+	/**
+	 * Devices known to the household. Used to map coordinators to devices
+	 */
+	private final List<SonosDevice> devices;
+
+	/**
+	 * Bounds the requests issued at once on the shared pool
+	 */
+	private final Executor executor;
+
+	/**
+	 * @param devices the devices of the household
+	 */
+	public Household(Collection<SonosDevice> devices) {
+		this(devices, DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * @param devices        the devices of the household
+	 * @param maxParallelism the maximum number of requests issued at once
+	 */
+	public Household(Collection<SonosDevice> devices, int maxParallelism) {
+		if (maxParallelism < 1) {
+			throw new IllegalArgumentException("Parallelism has to be >= 1");
+		}
+		this.devices = new ArrayList<>(devices);
+		this.executor = Async.bounded(maxParallelism);
+	}
+
+	/**
+	 * @return the devices of the household
+	 */
+	public List<SonosDevice> getDevices() {
+		return new ArrayList<>(devices);
+	}
+
+	/**
+	 * Execute an operation on every device.
+	 *
+	 * @param <T>       the result type of the operation
+	 * @param targets   the devices to execute the operation on
+	 * @param operation the operation
+	 * @return the per device results and failures
+	 * @throws InterruptedException If the thread gets interrupted
+	 */
+	public <T> HouseholdResult<T> execute(Collection<SonosDevice> targets, DeviceOperation<T> operation)
+			throws InterruptedException {
+		return join(executeAsync(targets, operation));
+	}
+
+	/**
+	 * Execute an operation on every device without blocking. The returned future
+	 * never completes exceptionally, failures are reported in the result.
+	 *
+	 * @param <T>       the result type of the operation
+	 * @param targets   the devices to execute the operation on
+	 * @param operation the operation
+	 * @return the future of the aggregated result
+	 */
+	public <T> CompletableFuture<HouseholdResult<T>> executeAsync(Collection<SonosDevice> targets,
+			DeviceOperation<T> operation) {
+		HouseholdResult<T> result = new HouseholdResult<>();
+		List<CompletableFuture<?>> futures = new ArrayList<>();
+		for (SonosDevice device : targets) {
+			futures.add(Async.supply(() -> operation.apply(device), executor).handle((value, exception) -> {
+				if (exception == null) {
+					result.addResult(device, value);
+				} else {
+					result.addFailure(device, unwrap(exception));
+				}
+				return null;
+			}));
+		}
+		return Async.allOf(futures).thenApply(ignore -> result);
+	}
+
+	/**
+	 * Execute an operation only on devices whose model supports it. The
+	 * capabilities of the devices are resolved concurrently, ineligible devices
+	 * are reported as skipped instead of failing after a round trip.
+	 *
+	 * <pre>
+	 * household.executeWhere(devices, c -&gt; c.hasService(DeviceCapabilities.HT_CONTROL_SERVICE), d -&gt; {
+	 * 	d.setNightMode(true);
+	 * 	return null;
+	 * });
+	 * </pre>
+	 *
+	 * @param <T>       the result type of the operation
+	 * @param targets   the devices to execute the operation on
+	 * @param eligible  decides based on the capabilities of a device if the
+	 *                  operation is executed
+	 * @param operation the operation
+	 * @return the per device results, failures and skipped devices
+	 * @throws InterruptedException If the thread gets interrupted
+	 */
+	public <T> HouseholdResult<T> executeWhere(Collection<SonosDevice> targets,
+			Predicate<DeviceCapabilities> eligible, DeviceOperation<T> operation) throws InterruptedException {
+		HouseholdResult<T> result = new HouseholdResult<>();
+		List<CompletableFuture<?>> futures = new ArrayList<>();
+		for (SonosDevice device : targets) {
+			futures.add(Async.supply(() -> {
+				if (!eligible.test(device.getCapabilities())) {
+					result.addSkipped(device);
+					return null;
+				}
+				result.addResult(device, operation.apply(device));
+				return null;
+			}, executor).exceptionally(exception -> {
+				result.addFailure(device, unwrap(exception));
+				return null;
+			}));
+		}
+		join(Async.allOf(futures));
+		return result;
+	}
+
+	/**
+	 * Execute an operation once per group. The coordinators of all targets are
+	 * resolved and the operation is executed on each distinct coordinator. Use
+	 * this for transport commands acting on the whole group.
+	 *
+	 * @param <T>       the result type of the operation
+	 * @param targets   the devices whose groups the operation targets
+	 * @param operation the operation
+	 * @return the per coordinator results and failures. Devices whose coordinator
+	 *         could not be resolved are reported as failure
+	 * @throws InterruptedException If the thread gets interrupted
+	 */
+	public <T> HouseholdResult<T> executeOnCoordinators(Collection<SonosDevice> targets,
+			DeviceOperation<T> operation) throws InterruptedException {
+		return join(executeOnCoordinatorsAsync(targets, operation));
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link #executeOnCoordinators(Collection, DeviceOperation)}
+	 *
+	 * @param <T>       the result type of the operation
+	 * @param targets   the devices whose groups the operation targets
+	 * @param operation the operation
+	 * @return the future of the aggregated result
+	 */
+	public <T> CompletableFuture<HouseholdResult<T>> executeOnCoordinatorsAsync(Collection<SonosDevice> targets,
+			DeviceOperation<T> operation) {
+		return executeAsync(targets, SonosDevice::getCoordinatorUID).thenCompose(coordinators -> {
+			// Coordinator uid -> device
+			Map<String, SonosDevice> distinct = new LinkedHashMap<>();
+			HouseholdResult<T> unresolved = new HouseholdResult<>();
+			for (SonosDevice device : targets) {
+				String coordinatorUID = coordinators.getResults().get(device);
+				if (coordinatorUID == null) {
+					Exception failure = coordinators.getFailures().get(device);
+					if (failure == null) {
+						failure = new SonosControllerException(
+								"Could not resolve the coordinator of " + device.getIpAddress());
+					}
+					unresolved.addFailure(device, failure);
+					continue;
+				}
+				if (!distinct.containsKey(coordinatorUID)) {
+					try {
+						distinct.put(coordinatorUID, resolveDevice(coordinatorUID, device));
+					} catch (IOException | SonosControllerException e) {
+						unresolved.addFailure(device, e);
+					}
+				}
+			}
+			return executeAsync(distinct.values(), operation).thenApply(result -> {
+				unresolved.getFailures().forEach(result::addFailure);
+				return result;
+			});
+		});
+	}
+
+	/**
+	 * Warm up the connections to all devices of the household in parallel. Call
+	 * once at startup so the first user triggered command costs the same as any
+	 * following one.
+	 *
+	 * @return the readiness and latency of every reachable device. Unreachable
+	 *         devices are reported as failure
+	 * @throws InterruptedException If the thread gets interrupted
+	 * @see SonosDevice#warmUp()
+	 */
+	public HouseholdResult<DeviceReadiness> warmUp() throws InterruptedException {
+		return execute(devices, SonosDevice::warmUp);
+	}
+
+	/**
+	 * Pause playback of all groups the targets are part of.
+	 *
+	 * @param targets the devices to pause
+	 * @return the per coordinator results and failures
+	 * @throws InterruptedException If the thread gets interrupted
+	 */
+	public HouseholdResult<Void> pauseAll(Collection<SonosDevice> targets) throws InterruptedException {
+		return executeOnCoordinators(targets, device -> {
+			device.pause();
+			return null;
+		});
+	}
+
+	/**
+	 * Clear the queues of all groups the targets are part of.
+	 *
+	 * @param targets the devices whose queues are cleared
+	 * @return the per coordinator results and failures
+	 * @throws InterruptedException If the thread gets interrupted
+	 */
+	public HouseholdResult<Void> clearQueues(Collection<SonosDevice> targets) throws InterruptedException {
+		return executeOnCoordinators(targets, device -> {
+			device.clearQueue();
+			return null;
+		});
+	}
+
+	/**
+	 * Mute or unmute every target.
+	 *
+	 * @param targets the devices to mute
+	 * @param mute    True to mute, False to unmute
+	 * @return the per device results and failures
+	 * @throws InterruptedException If the thread gets interrupted
+	 */
+	public HouseholdResult<Void> muteAll(Collection<SonosDevice> targets, boolean mute)
+			throws InterruptedException {
+		return execute(targets, device -> {
+			device.setMute(mute);
+			return null;
+		});
+	}
+
+	/**
+	 * Set the volume of multiple devices.
+	 *
+	 * @param volumes device -> volume between 0 and 100
+	 * @return the per device results and failures
+	 * @throws InterruptedException If the thread gets interrupted
+	 */
+	public HouseholdResult<Void> setVolumes(Map<SonosDevice, Integer> volumes) throws InterruptedException {
+		return execute(volumes.keySet(), device -> {
+			device.setVolume(volumes.get(device));
+			return null;
+		});
+	}
+
+	/**
+	 * Group devices with a coordinator. All joins are sent concurrently, members
+	 * already part of the group are skipped.
+	 *
+	 * @param coordinator the coordinator of the group
+	 * @param members     the devices joining the group
+	 * @param timeout     the maximum time to wait for the topology to confirm the
+	 *                    group. A value {@literal <}= 0 waits indefinitely
+	 * @param unit        the time unit of the timeout
+	 * @return a future completing with the group once topology events confirm
+	 *         that every member joined. Completes exceptionally if a join fails or
+	 *         the timeout elapses
+	 */
+	public CompletableFuture<ZoneGroup> group(SonosDevice coordinator, Collection<SonosDevice> members,
+			long timeout, TimeUnit unit) {
+		return Async.supply(coordinator::getLocalUID, executor).thenCompose(coordinatorUID -> regroup(coordinator,
+				members, uid -> coordinatorUID, device -> device.join(coordinatorUID), timeout, unit));
+	}
+
+	/**
+	 * Remove devices from their groups. All commands are sent concurrently,
+	 * devices which already coordinate their own group are skipped.
+	 *
+	 * @param targets the devices leaving their groups
+	 * @param timeout the maximum time to wait for the topology to confirm the
+	 *                change. A value {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing once topology events confirm that every target
+	 *         coordinates its own group. Completes exceptionally if a command
+	 *         fails or the timeout elapses
+	 */
+	public CompletableFuture<Void> ungroup(Collection<SonosDevice> targets, long timeout, TimeUnit unit) {
+		if (targets.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		SonosDevice observer = targets.iterator().next();
+		return regroup(observer, targets, uid -> uid, SonosDevice::unjoin, timeout, unit).thenApply(group -> null);
+	}
+
+	@FunctionalInterface
+	private interface GroupCommand {
+		void send(SonosDevice device) throws IOException, SonosControllerException;
+	}
+
+	/**
+	 * Send the grouping commands concurrently and await the confirmation of the
+	 * topology observed by the given device
+	 */
+	private CompletableFuture<ZoneGroup> regroup(SonosDevice observer, Collection<SonosDevice> targets,
+			Function<String, String> coordinatorOf, GroupCommand command, long timeout, TimeUnit unit) {
+		List<CompletableFuture<String>> uids = new ArrayList<>();
+		for (SonosDevice device : targets) {
+			uids.add(Async.supply(device::getLocalUID, executor));
+		}
+		return Async.allOf(uids).thenCompose(ignore -> {
+			Map<String, String> expected = new LinkedHashMap<>();
+			for (CompletableFuture<String> uid : uids) {
+				expected.put(uid.join(), coordinatorOf.apply(uid.join()));
+			}
+			GroupCondition condition = new GroupCondition(observer, expected);
+			// Registered before sending so no topology event is missed
+			CompletableFuture<ZoneGroup> confirmed = observer.awaitCondition(condition, timeout, unit);
+
+			List<CompletableFuture<Void>> sent = new ArrayList<>();
+			int i = 0;
+			for (SonosDevice device : targets) {
+				String uid = uids.get(i++).join();
+				if (!condition.isSatisfied(uid)) {
+					sent.add(Async.supply(() -> {
+						command.send(device);
+						return null;
+					}, executor));
+				}
+			}
+			Async.allOf(sent).whenComplete((value, exception) -> {
+				if (exception != null) {
+					confirmed.completeExceptionally(unwrap(exception));
+				} else {
+					// All members may already have been in place
+					condition.check();
+				}
+			});
+			return confirmed;
+		});
+	}
+
+	/**
+	 * Move the playback of a room to another room. The target joins the group of
+	 * the source and the source leaves once the target plays in sync, so playback
+	 * never stops. If the grouping based transfer fails, the transport and
+	 * position of the source are copied to the target while the source keeps
+	 * playing. The source is stopped as soon as the target reports playback to
+	 * keep the gap minimal.
+	 * <p>
+	 * If the source plays from the queue, the copy only moves the current track.
+	 *
+	 * @param source  the room currently playing
+	 * @param target  the room taking over the playback
+	 * @param timeout the maximum time to wait for each step to be confirmed. A
+	 *                value {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing with the mode used and the measured gap.
+	 *         Completes exceptionally if neither mode succeeded
+	 */
+	public CompletableFuture<HandoffResult> handoff(SonosDevice source, SonosDevice target, long timeout,
+			TimeUnit unit) {
+		long start = System.nanoTime();
+		CompletableFuture<String> sourceUID = Async.supply(source::getLocalUID, executor);
+		CompletableFuture<String> targetUID = Async.supply(target::getLocalUID, executor);
+		CompletableFuture<String> coordinatorUID = Async.supply(source::getCoordinatorUID, executor);
+		CompletableFuture<PlayState> playState = Async.supply(source::getPlayState, executor);
+
+		return CompletableFuture.allOf(sourceUID, targetUID, coordinatorUID, playState).thenCompose(ignore -> {
+			boolean member = !sourceUID.join().equals(coordinatorUID.join());
+			boolean playing = playState.join().equals(PlayState.PLAYING)
+					|| playState.join().equals(PlayState.TRANSITIONING);
+			return transferGroup(source, target, targetUID.join(), coordinatorUID.join(), member, playing,
+					timeout, unit)
+					.thenApply(gap -> new HandoffResult(HandoffResult.Mode.GROUP_TRANSFER, gap, elapsedMillis(start)))
+					.handle((result, exception) -> exception == null ? CompletableFuture.completedFuture(result)
+							: copyTransport(source, target, coordinatorUID.join(), member, playing, timeout, unit,
+									start))
+					.thenCompose(Function.identity());
+		});
+	}
+
+	/**
+	 * Join the target to the group of the source and remove the source once the
+	 * target plays
+	 *
+	 * @return the gap in milliseconds
+	 */
+	private CompletableFuture<Long> transferGroup(SonosDevice source, SonosDevice target, String targetUID,
+			String coordinatorUID, boolean member, boolean playing, long timeout, TimeUnit unit) {
+		CompletableFuture<Long> targetStarted = Async
+				.supply(() -> resolveDevice(coordinatorUID, source), executor)
+				.thenCompose(coordinator -> group(coordinator, List.of(target), timeout, unit))
+				.thenCompose(group -> playing ? awaitPlaying(target, timeout, unit)
+						: CompletableFuture.completedFuture(0L));
+
+		return targetStarted.thenCompose(startedAt -> {
+			// A leaving coordinator hands the group to the target, the target has to
+			// end up coordinating the remaining members
+			List<SonosDevice> leaving = member ? List.of(source) : List.of(source, target);
+			GroupCommand leave = device -> {
+				if (device != source) {
+					return;
+				}
+				if (member) {
+					source.unjoin();
+				} else {
+					try {
+						source.delegateGroupCoordinationTo(targetUID, false);
+					} catch (UnsupportedActionException e) {
+						source.unjoin();
+					}
+				}
+			};
+			// Without playback there is nothing to overlap or interrupt
+			return regroup(source, leaving, uid -> uid, leave, timeout, unit)
+					.thenApply(group -> playing ? (startedAt - System.nanoTime()) / 1_000_000 : 0L);
+		});
+	}
+
+	/**
+	 * Copy the transport and position of the source to the target, start the
+	 * target and stop the source once the target reports playback
+	 */
+	private CompletableFuture<HandoffResult> copyTransport(SonosDevice source, SonosDevice target,
+			String coordinatorUID, boolean member, boolean playing, long timeout, TimeUnit unit, long start) {
+		CompletableFuture<SonosDevice> coordinator = Async.supply(() -> resolveDevice(coordinatorUID, source),
+				executor);
+		CompletableFuture<String> mediaInfo = coordinator.thenCompose(device -> Async.supply(() -> CommandBuilder
+				.transport("GetMediaInfo").put("InstanceID", "0").executeOn(device.getIpAddress()), executor));
+		CompletableFuture<TrackInfo> track = coordinator
+				.thenCompose(device -> Async.supply(device::getCurrentTrackInfo, executor));
+
+		return CompletableFuture.allOf(mediaInfo, track).thenCompose(ignore -> {
+			long readAt = System.nanoTime();
+			String media = mediaInfo.join();
+			TrackInfo current = track.join();
+			CompletableFuture<Void> prepared = Async.supply(() -> {
+				String uri = ParserHelper.findOne("<CurrentURI>(.*)</CurrentURI>", media);
+				if (uri.startsWith("x-rincon-queue:")) {
+					target.loadUri(current.getUri(), current.getMetadata());
+				} else {
+					target.loadUri(uri, ParserHelper.findOne("<CurrentURIMetaData>(.*)</CurrentURIMetaData>", media));
+				}
+				// Streams have no duration and can not be seeked
+				if (current.getDuration() > 0 && current.getPosition() > 0) {
+					long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - readAt);
+					target.seek((int) Math.min(current.getPosition() + elapsed, current.getDuration()));
+				}
+				return null;
+			}, executor);
+
+			if (!playing) {
+				return prepared.thenApply(
+						prepare -> new HandoffResult(HandoffResult.Mode.SNAPSHOT_RESTORE, 0, elapsedMillis(start)));
+			}
+			return prepared
+					.thenCompose(prepare -> sendAndAwait(target, PlayState.PLAYING, SonosDevice::play, timeout, unit))
+					.thenCompose(startedAt -> {
+						// Members leave the group, coordinators pause the entire group
+						CompletableFuture<Long> stopped = member
+								? sendAndAwait(source, PlayState.STOPPED, SonosDevice::unjoin, timeout, unit)
+								: sendAndAwait(coordinator.join(), PlayState.PAUSED_PLAYBACK, SonosDevice::pause,
+										timeout, unit);
+						return stopped.thenApply(stoppedAt -> new HandoffResult(HandoffResult.Mode.SNAPSHOT_RESTORE,
+								(startedAt - stoppedAt) / 1_000_000, elapsedMillis(start)));
+					});
+		});
+	}
+
+	/**
+	 * Await the device to report playback. A member may have reported playing
+	 * before the condition was registered, therefore the state is read once as
+	 * well.
+	 *
+	 * @return a future completing with the {@link System#nanoTime()} playback was
+	 *         reported at
+	 */
+	private CompletableFuture<Long> awaitPlaying(SonosDevice device, long timeout, TimeUnit unit) {
+		CompletableFuture<PlayState> playing = device.awaitPlayState(PlayState.PLAYING, timeout, unit);
+		Async.supply(device::getPlayState, executor).thenAccept(state -> {
+			if (state.equals(PlayState.PLAYING)) {
+				playing.complete(state);
+			}
+		});
+		return playing.thenApply(state -> System.nanoTime());
+	}
+
+	/**
+	 * Send a command and await the device to report the play state caused by it.
+	 * The condition is registered before sending so the event is not missed.
+	 *
+	 * @return a future completing with the {@link System#nanoTime()} the state was
+	 *         reported at
+	 */
+	private CompletableFuture<Long> sendAndAwait(SonosDevice device, PlayState state, GroupCommand command,
+			long timeout, TimeUnit unit) {
+		CompletableFuture<PlayState> reported = device.awaitPlayState(state, timeout, unit);
+		CompletableFuture<Long> reportedAt = reported.thenApply(ignore -> System.nanoTime());
+		Async.supply(() -> {
+			command.send(device);
+			return null;
+		}, executor).whenComplete((value, exception) -> {
+			if (exception != null) {
+				reported.completeExceptionally(unwrap(exception));
+			}
+		});
+		return reportedAt;
+	}
+
+	private static long elapsedMillis(long start) {
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	/**
+	 * Start the same uri on independent devices at once.
+	 *
+	 * @param devices  the devices to start. Devices part of a group leave their
+	 *                 group
+	 * @param uri      the uri to play
+	 * @param metadata the metadata of the uri or null
+	 * @param timeout  the maximum time to wait for all devices to report playback.
+	 *                 A value {@literal <}= 0 waits indefinitely
+	 * @param unit     the time unit of the timeout
+	 * @return a future completing with the measured start skew
+	 * @see #startTogether(Map, long, TimeUnit)
+	 */
+	public CompletableFuture<StartSkew> startTogether(Collection<SonosDevice> devices, String uri,
+			TrackMetadata metadata, long timeout, TimeUnit unit) {
+		Map<SonosDevice, String> uris = new LinkedHashMap<>();
+		for (SonosDevice device : devices) {
+			uris.put(device, uri);
+		}
+		return startTogether(uris, metadata == null ? "" : metadata.toDIDL(), timeout, unit);
+	}
+
+	/**
+	 * Start playback on independent devices at once. Rooms which can not be
+	 * grouped still start with a minimal skew:
+	 * <ol>
+	 * <li>The transport uris of all devices are set concurrently and the devices
+	 * are subscribed to their avtransport events. The connections used for the
+	 * preparation stay pooled for the play requests.</li>
+	 * <li>A thread per device is parked until all threads are ready, then all
+	 * play requests are sent at once.</li>
+	 * <li>The skew is measured from the local arrival of the avtransport events
+	 * reporting playback, not from timestamps of the devices, and includes the
+	 * network and event delivery jitter. Devices which can not be subscribed are
+	 * polled instead, limiting the accuracy to the poll interval.</li>
+	 * </ol>
+	 * If a uri can not be set no device is started.
+	 *
+	 * @param uris    the uri to play on each device. Devices part of a group leave
+	 *                their group
+	 * @param timeout the maximum time to wait for all devices to report playback.
+	 *                A value {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing with the measured start skew. Completes
+	 *         exceptionally if a device could not be prepared or started
+	 */
+	public CompletableFuture<StartSkew> startTogether(Map<SonosDevice, String> uris, long timeout, TimeUnit unit) {
+		return startTogether(uris, "", timeout, unit);
+	}
+
+	private CompletableFuture<StartSkew> startTogether(Map<SonosDevice, String> uris, String didl, long timeout,
+			TimeUnit unit) {
+		Map<SonosDevice, CompletableFuture<CompletableFuture<PlayState>>> prepared = new LinkedHashMap<>();
+		for (Map.Entry<SonosDevice, String> entry : uris.entrySet()) {
+			SonosDevice device = entry.getKey();
+			prepared.put(device, Async.supply(() -> {
+				device.loadUri(entry.getValue(), didl);
+				// Subscribes the device before firing so no event is missed
+				return device.awaitPlayState(PlayState.PLAYING, timeout, unit);
+			}, executor));
+		}
+
+		return Async.allOf(prepared.values()).whenComplete((ignore, exception) -> {
+			if (exception != null) {
+				// Nothing was started, release the conditions
+				for (CompletableFuture<CompletableFuture<PlayState>> future : prepared.values()) {
+					future.thenAccept(playing -> playing.cancel(false));
+				}
+			}
+		}).thenCompose(ignore -> {
+			Map<SonosDevice, CompletableFuture<Long>> startedAt = new LinkedHashMap<>();
+			for (Map.Entry<SonosDevice, CompletableFuture<CompletableFuture<PlayState>>> entry : prepared
+					.entrySet()) {
+				startedAt.put(entry.getKey(), entry.getValue().join().thenApply(state -> System.nanoTime()));
+			}
+			Map<SonosDevice, CompletableFuture<Long>> acknowledgedAt = playAtOnce(uris.keySet());
+			for (Map.Entry<SonosDevice, CompletableFuture<Long>> entry : acknowledgedAt.entrySet()) {
+				CompletableFuture<PlayState> playing = prepared.get(entry.getKey()).join();
+				entry.getValue().whenComplete((time, exception) -> {
+					if (exception != null) {
+						playing.completeExceptionally(unwrap(exception));
+					}
+				});
+			}
+			return Async.allOf(startedAt.values()).thenCombine(Async.allOf(acknowledgedAt.values()),
+					(started, acknowledged) -> new StartSkew(offsets(startedAt), offsets(acknowledgedAt)));
+		});
+	}
+
+	/**
+	 * Send the play command to all devices at once. Each device gets a thread
+	 * which waits until the threads of all other devices are ready, so thread
+	 * creation does not add to the skew. The devices left their groups when their
+	 * uri was set, the command is sent to each device directly from the released
+	 * thread without passing its command queue.
+	 *
+	 * @return the {@link System#nanoTime()} each device acknowledged the command at
+	 */
+	private static Map<SonosDevice, CompletableFuture<Long>> playAtOnce(Collection<SonosDevice> devices) {
+		CountDownLatch ready = new CountDownLatch(devices.size());
+		Map<SonosDevice, CompletableFuture<Long>> acknowledged = new LinkedHashMap<>();
+		for (SonosDevice device : devices) {
+			acknowledged.put(device, Async.supply(() -> {
+				ready.countDown();
+				try {
+					ready.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted before sending play to " + device.getIpAddress());
+				}
+				CommandBuilder.transport("Play").priority(RequestPriority.INTERACTIVE).put("InstanceID", "0")
+						.put("Speed", "1").executeOn(device.getIpAddress());
+				return System.nanoTime();
+			}, Async.POOL));
+		}
+		return acknowledged;
+	}
+
+	/**
+	 * @return the time in milliseconds each timestamp is after the earliest one
+	 */
+	private static Map<SonosDevice, Long> offsets(Map<SonosDevice, CompletableFuture<Long>> timestamps) {
+		long first = Long.MAX_VALUE;
+		for (CompletableFuture<Long> timestamp : timestamps.values()) {
+			first = Math.min(first, timestamp.join());
+		}
+		Map<SonosDevice, Long> offsets = new LinkedHashMap<>();
+		for (Map.Entry<SonosDevice, CompletableFuture<Long>> entry : timestamps.entrySet()) {
+			offsets.put(entry.getKey(), (entry.getValue().join() - first) / 1_000_000);
+		}
+		return offsets;
+	}
+
+	/**
+	 * Map a coordinator uid to a device. Known devices are preferred, otherwise a
+	 * device is created from the location advertised in the topology.
+	 */
+	private SonosDevice resolveDevice(String coordinatorUID, SonosDevice member)
+			throws IOException, SonosControllerException {
+		for (SonosDevice device : devices) {
+			if (coordinatorUID.equals(device.getLocalUID())) {
+				return device;
+			}
+		}
+		if (coordinatorUID.equals(member.getLocalUID())) {
+			return member;
+		}
+		ZoneGroupMember coordinator = member.getZoneTopology().getMember(coordinatorUID);
+		if (coordinator == null || coordinator.getIpAddress().isEmpty()) {
+			throw new SonosControllerException("Could not resolve coordinator " + coordinatorUID);
+		}
+		return createDevice(coordinator.getIpAddress());
+	}
+
+	private static SonosDevice createDevice(String ip) throws UnknownHostException {
+		return new SonosDevice(UPnPDevice.createDummyDevice(ip));
+	}
+
+	private static Exception unwrap(Throwable throwable) {
+		if (throwable instanceof CompletionException && throwable.getCause() != null) {
+			throwable = throwable.getCause();
+		}
+		if (throwable instanceof Exception) {
+			return (Exception) throwable;
+		}
+		return new Exception(throwable);
+	}
+
+	private static <T> T join(CompletableFuture<T> future) throws InterruptedException {
+		try {
+			return EventCondition.await(future);
+		} catch (IOException | SonosControllerException e) {
+			// The aggregated futures never complete exceptionally
+			throw new IllegalStateException(e);
+		}
+	}
+}
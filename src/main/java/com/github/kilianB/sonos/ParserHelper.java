@@ -16,6 +16,8 @@ import org.jdom2.Namespace;
  */
 public class ParserHelper {
 
+	private static final Pattern TIMESTAMP = Pattern.compile("[0-9]+:[0-9]+:[0-9]+");
+
 	// Hide the implicit public constructor.
 	private ParserHelper() {
 	}
@@ -54,15 +56,47 @@ public class ParserHelper {
 		return Collections.unmodifiableList(r);
 	}
 	
+	/**
+	 * Return the text of multiple elements in a single forward pass over the
+	 * content. Elements not found after the previous element are searched from
+	 * the start.
+	 * 
+	 * @param content data
+	 * @param tags    the names of the elements in the order they appear in the
+	 *                content
+	 * @return the text of each element. An empty string if the element wasn't
+	 *         found
+	 */
+	public static String[] findTags(String content, String... tags) {
+		String[] values = new String[tags.length];
+		int position = 0;
+		for (int i = 0; i < tags.length; i++) {
+			String open = "<" + tags[i] + ">";
+			int start = content.indexOf(open, position);
+			if (start < 0) {
+				start = content.indexOf(open);
+			}
+			int end = start < 0 ? -1 : content.indexOf("</" + tags[i] + ">", start + open.length());
+			if (end < 0) {
+				values[i] = "";
+				continue;
+			}
+			values[i] = content.substring(start + open.length(), end);
+			position = end + tags[i].length() + 3;
+		}
+		return values;
+	}
+
 	 /**
      * Converts the sonos upnp timestamp HH:MM:SS to 
      * a duration in seconds
      * @param durationAsString the duration 
-     * @return timestamp as seconds
+     * @return timestamp as seconds. 0 if the duration is empty or not a timestamp
+     * 	e.g. NOT_IMPLEMENTED for streams
      */
 	public static int formatedTimestampToSeconds(String durationAsString) {
 
-		if(!durationAsString.isEmpty()) {
+		if(TIMESTAMP.matcher(durationAsString).matches()) {
 			String[] parts = durationAsString.split(":");
 			return Integer.parseInt(parts[0]) * 3600 + Integer.parseInt(parts[1]) * 60 + Integer.parseInt(parts[2]);
 		}else {
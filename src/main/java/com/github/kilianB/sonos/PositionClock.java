@@ -0,0 +1,213 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import com.github.kilianB.DaemonThreadFactory;
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.sonos.listener.SonosEventAdapter;
+import com.github.kilianB.sonos.model.PlayState;
+import com.github.kilianB.sonos.model.TrackInfo;
+
+/**
+ * Local playback position of a sonos device.
+ * <p>
+ * The clock is seeded once by a <code>GetPositionInfo</code> request and
+ * afterwards advanced locally using a monotonic clock while the device reports
+ * to be playing. Seek, track change and pause events emitted by the AVTransport
+ * service re-synchronize the clock in the background. Querying the position
+ * never issues a network call, allowing user interfaces to display the progress
+ * without polling the device.
+ *
+ * @author Kilian
+ * @see SonosDevice#getPositionClock()
+ */
+public class PositionClock extends SonosEventAdapter {
+
+	private static final Logger LOGGER = Logger.getLogger(PositionClock.class.getName());
+
+	/**
+	 * Re-synchronization requests are cheap but should never block the event
+	 * thread
+	 */
+	private static final ExecutorService SYNC_EXECUTOR = Executors
+			.newSingleThreadExecutor(new DaemonThreadFactory("PositionClock"));
+
+	private final SonosDevice device;
+
+	/**
+	 * Position in milliseconds at the time of the anchor
+	 */
+	private long anchorPosition;
+
+	/**
+	 * System.nanoTime() at which the anchor position was valid
+	 */
+	private long anchorNanos;
+
+	/**
+	 * Duration of the current track in milliseconds. 0 if unknown e.g. streams
+	 */
+	private long duration;
+
+	/**
+	 * System.nanoTime() of the last anchor set by an event or seek. Responses to
+	 * requests issued before are outdated
+	 */
+	private long eventNanos;
+
+	private PlayState playState = PlayState.STOPPED;
+
+	/**
+	 * Track of the last synchronization or track change event
+	 */
+	private TrackInfo track;
+
+	private boolean synced;
+
+	PositionClock(SonosDevice device) {
+		this.device = device;
+	}
+
+	/**
+	 * Synchronize the clock with the device. Issues a single
+	 * <code>GetPositionInfo</code> and <code>GetTransportInfo</code> request.
+	 *
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public void sync() throws IOException, SonosControllerException {
+		long requested = System.nanoTime();
+		PlayState state = device.getPlayState();
+		TrackInfo track = device.getCurrentTrackInfo();
+		synchronized (this) {
+			if (requested - eventNanos >= 0) {
+				this.playState = state;
+				this.track = track;
+				this.duration = track.getDuration() * 1000L;
+				anchor(track.getPosition() * 1000L);
+			}
+			synced = true;
+		}
+	}
+
+	/**
+	 * @return the current position of the track in seconds
+	 */
+	public int currentPosition() {
+		return (int) (currentPositionMillis() / 1000);
+	}
+
+	/**
+	 * @return the current position of the track in milliseconds
+	 */
+	public synchronized long currentPositionMillis() {
+		long position = anchorPosition;
+		if (playState.equals(PlayState.PLAYING)) {
+			position += (System.nanoTime() - anchorNanos) / 1_000_000;
+		}
+		if (duration > 0 && position > duration) {
+			position = duration;
+		}
+		return position;
+	}
+
+	/**
+	 * @return the duration of the current track in seconds or 0 if unknown
+	 */
+	public synchronized int getDuration() {
+		return (int) (duration / 1000);
+	}
+
+	/**
+	 * @return the track of the last synchronization or track change event. The
+	 *         position of the track is not advanced, use
+	 *         {@link #currentPosition()} instead
+	 */
+	public synchronized TrackInfo getTrack() {
+		return track;
+	}
+
+	/**
+	 * @return the last play state known to the clock
+	 */
+	public synchronized PlayState getPlayState() {
+		return playState;
+	}
+
+	/**
+	 * @return true if the clock was synchronized with the device at least once
+	 */
+	public synchronized boolean isSynced() {
+		return synced;
+	}
+
+	/**
+	 * Inform the clock about a seek request issued by this library
+	 *
+	 * @param seconds the new position in seconds
+	 */
+	synchronized void seeked(int seconds) {
+		eventAnchor(seconds * 1000L);
+	}
+
+	@Override
+	public void playStateChanged(PlayState newPlayState) {
+		synchronized (this) {
+			// Freeze the extrapolated position before switching the state
+			eventAnchor(currentPositionMillis());
+			playState = newPlayState;
+		}
+		// Seeks are reported as TRANSITIONING -> PLAYING. Pausing or stopping
+		// corrects the accumulated drift.
+		if (!newPlayState.equals(PlayState.TRANSITIONING)) {
+			resyncAsync();
+		}
+	}
+
+	@Override
+	public void trackChanged(TrackInfo currentTrack) {
+		synchronized (this) {
+			track = currentTrack;
+			duration = currentTrack.getDuration() * 1000L;
+			eventAnchor(0);
+		}
+		resyncAsync();
+	}
+
+	private void anchor(long positionMillis) {
+		anchorPosition = positionMillis;
+		anchorNanos = System.nanoTime();
+	}
+
+	private void eventAnchor(long positionMillis) {
+		anchor(positionMillis);
+		eventNanos = anchorNanos;
+	}
+
+	private void resyncAsync() {
+		SYNC_EXECUTOR.execute(() -> {
+			try {
+				long requested = System.nanoTime();
+				TrackInfo track = device.getCurrentTrackInfo();
+				synchronized (this) {
+					if (requested - eventNanos < 0) {
+						// A newer event moved the anchor while the request was in flight
+						return;
+					}
+					this.track = track;
+					duration = track.getDuration() * 1000L;
+					anchor(track.getPosition() * 1000L);
+					synced = true;
+				}
+			} catch (IOException | SonosControllerException e) {
+				LOGGER.warning(MessageFormat.format("Could not re-synchronize position clock of {0}: {1}",
+						device.getIpAddress(), e));
+			}
+		});
+	}
+}
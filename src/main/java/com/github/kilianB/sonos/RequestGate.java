@@ -0,0 +1,107 @@
+package com.github.kilianB.sonos;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits the number of concurrent requests sent to a single device and admits
+ * waiting requests by priority. One slot is reserved for interactive requests
+ * so a user command never waits behind bulk work. Requests are never aborted,
+ * background work is preempted at request boundaries.
+ *
+ * @author Kilian
+ *
+ */
+final class RequestGate {
+
+	/**
+	 * Maximum number of concurrent requests per device
+	 */
+	static final int SLOTS_PER_DEVICE = 4;
+
+	/**
+	 * Slots which can only be used by interactive requests
+	 */
+	static final int RESERVED_INTERACTIVE_SLOTS = 1;
+
+	/**
+	 * Maximum number of concurrent background requests per device
+	 */
+	static final int BACKGROUND_SLOTS = 2;
+
+	private static final long CANCELLATION_CHECK_INTERVAL = 50;
+
+	private static final ConcurrentHashMap<String, RequestGate> GATES = new ConcurrentHashMap<>();
+
+	/** Guarded by this */
+	private int inUse;
+	private int backgroundInUse;
+	private final int[] waiting = new int[RequestPriority.values().length];
+
+	/**
+	 * @param ip the ip of the device
+	 * @return the gate shared by all requests to the device
+	 */
+	static RequestGate of(String ip) {
+		return GATES.computeIfAbsent(ip, key -> new RequestGate());
+	}
+
+	/**
+	 * Block until a request of the given priority may be sent.
+	 *
+	 * @param priority the priority of the request
+	 * @param scope    the scope of the request. May be null
+	 * @return true if a slot was acquired, false if the scope was cancelled or its
+	 *         deadline passed while waiting
+	 * @throws InterruptedException If the thread gets interrupted while waiting
+	 */
+	synchronized boolean acquire(RequestPriority priority, CommandScope scope) throws InterruptedException {
+		waiting[priority.ordinal()]++;
+		try {
+			while (!canEnter(priority)) {
+				if (scope == null) {
+					wait();
+				} else if (scope.isDone()) {
+					return false;
+				} else {
+					// Cancellation does not notify the gate. Recheck periodically
+					wait(Math.min(CANCELLATION_CHECK_INTERVAL, Math.max(1, scope.remainingMillis())));
+				}
+			}
+		} finally {
+			waiting[priority.ordinal()]--;
+		}
+		inUse++;
+		if (priority == RequestPriority.BACKGROUND) {
+			backgroundInUse++;
+		}
+		return true;
+	}
+
+	/**
+	 * Release a slot previously acquired with
+	 * {@link #acquire(RequestPriority, CommandScope)}
+	 *
+	 * @param priority the priority the slot was acquired with
+	 */
+	synchronized void release(RequestPriority priority) {
+		inUse--;
+		if (priority == RequestPriority.BACKGROUND) {
+			backgroundInUse--;
+		}
+		notifyAll();
+	}
+
+	private boolean canEnter(RequestPriority priority) {
+		switch (priority) {
+		case INTERACTIVE:
+			return inUse < SLOTS_PER_DEVICE;
+		case NORMAL:
+			return inUse < SLOTS_PER_DEVICE - RESERVED_INTERACTIVE_SLOTS
+					&& waiting[RequestPriority.INTERACTIVE.ordinal()] == 0;
+		default:
+			return inUse < SLOTS_PER_DEVICE - RESERVED_INTERACTIVE_SLOTS && backgroundInUse < BACKGROUND_SLOTS
+					&& waiting[RequestPriority.INTERACTIVE.ordinal()] == 0
+					&& waiting[RequestPriority.NORMAL.ordinal()] == 0;
+		}
+	}
+}
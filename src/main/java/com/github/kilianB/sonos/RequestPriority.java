@@ -0,0 +1,25 @@
+package com.github.kilianB.sonos;
+
+/**
+ * Priority of a request sent to a device. Waiting requests are admitted in
+ * priority order once a request to the same device finished.
+ *
+ * @author Kilian
+ *
+ */
+enum RequestPriority {
+	/**
+	 * Commands triggered by a user, e.g. play, pause or volume changes. May use
+	 * the slot reserved for interactive traffic.
+	 */
+	INTERACTIVE,
+	/**
+	 * Default priority
+	 */
+	NORMAL,
+	/**
+	 * Bulk work like loading or paging through the queue. Only admitted if no
+	 * request of a higher priority is waiting.
+	 */
+	BACKGROUND
+}
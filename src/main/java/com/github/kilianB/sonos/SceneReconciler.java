@@ -0,0 +1,403 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.sonos.model.DesiredState;
+import com.github.kilianB.sonos.model.PlayState;
+import com.github.kilianB.sonos.model.SceneAttribute;
+import com.github.kilianB.sonos.model.SceneOutcome;
+import com.github.kilianB.sonos.model.SceneOutcome.Status;
+
+/**
+ * Applies a scene, the desired state of multiple devices, by only sending the
+ * commands needed to get from the current to the desired state.
+ * <p>
+ * The current state of all managed attributes is read concurrently, mirrored
+ * values are used if the device is subscribed to events. Commands are then
+ * issued in dependency order: devices leave their groups before other devices
+ * join them and grouping completes before sources and play states are set on
+ * the coordinators. A standalone device keeps members which shall join it
+ * according to the scene, all other members are removed from its group.
+ * Rendering attributes do not depend on grouping and are applied concurrently
+ * to all other steps.
+ *
+ * <pre>
+ * Map&lt;SonosDevice, DesiredState&gt; evening = new LinkedHashMap&lt;&gt;();
+ * evening.put(livingRoom, new DesiredState().standalone().source(uri, null).playState(PlayState.PLAYING).volume(25));
+ * evening.put(kitchen, new DesiredState().joinTo(livingRoom.getLocalUID()).volume(15));
+ * SceneOutcome outcome = new SceneReconciler().apply(evening);
+ * </pre>
+ *
+ * @author Kilian
+ *
+ */
+public class SceneReconciler {
+
+	/**
+	 * Change of a single attribute
+	 */
+	@FunctionalInterface
+	private interface Change {
+		/**
+		 * @return true if a command was sent, false if the attribute already had the
+		 *         desired value
+		 */
+		boolean apply() throws IOException, SonosControllerException;
+	}
+
+	/**
+	 * Current state of the managed attributes of a device. Reads are issued
+	 * concurrently, null if the attribute is not managed
+	 */
+	private class Current {
+		private CompletableFuture<String> localUID;
+		private CompletableFuture<String> coordinatorUID;
+		private CompletableFuture<List<String>> groupUIDs;
+		private CompletableFuture<String> uri;
+		private CompletableFuture<PlayState> playState;
+		private CompletableFuture<Integer> volume;
+		private CompletableFuture<Boolean> muted;
+		private CompletableFuture<Integer> bass;
+		private CompletableFuture<Integer> treble;
+		private CompletableFuture<Boolean> loudness;
+		private CompletableFuture<Boolean> nightMode;
+		private CompletableFuture<Boolean> dialogMode;
+
+		Current(SonosDevice device, DesiredState state) {
+			StateMirror mirror = device.getEventedState();
+			localUID = read(null, device::getLocalUID);
+			if (state.isGroupManaged()) {
+				coordinatorUID = read(null, device::getCoordinatorUID);
+			}
+			if (state.isStandalone()) {
+				groupUIDs = read(null, () -> device.getZoneGroupState().getZonePlayerUIDInGroup());
+			}
+			if (state.getUri() != null) {
+				uri = read(null, () -> currentUri(device));
+			}
+			if (state.getPlayState() != null) {
+				playState = read(null, device::getPlayState);
+			}
+			if (state.getVolume() != null) {
+				volume = read(mirror == null ? null : mirror.volume, device::getVolume);
+			}
+			if (state.getMuted() != null) {
+				muted = read(mirror == null ? null : mirror.muted, device::isMuted);
+			}
+			if (state.getBass() != null) {
+				bass = read(mirror == null ? null : mirror.bass, device::getBass);
+			}
+			if (state.getTreble() != null) {
+				treble = read(mirror == null ? null : mirror.treble, device::getTreble);
+			}
+			if (state.getLoudness() != null) {
+				loudness = read(mirror == null ? null : mirror.loudness, device::isLoudnessActivated);
+			}
+			if (state.getNightMode() != null) {
+				nightMode = read(mirror == null ? null : mirror.nightMode, device::isNightModeActivated);
+			}
+			if (state.getDialogMode() != null) {
+				dialogMode = read(mirror == null ? null : mirror.dialogMode, device::isDialogModeActivated);
+			}
+		}
+
+		private <T> CompletableFuture<T> read(T mirrored, Async.DeviceCall<T> call) {
+			return mirrored != null ? CompletableFuture.completedFuture(mirrored) : Async.supply(call, executor);
+		}
+	}
+
+	private final Executor executor;
+
+	public SceneReconciler() {
+		this(Async.POOL);
+	}
+
+	/**
+	 * @param executor the executor used to issue the concurrent requests
+	 */
+	public SceneReconciler(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Apply the scene and block until all commands completed.
+	 *
+	 * @param scene the desired state of every device of the scene
+	 * @return the outcome of every managed attribute
+	 * @throws InterruptedException If the thread gets interrupted
+	 */
+	public SceneOutcome apply(Map<SonosDevice, DesiredState> scene) throws InterruptedException {
+		SceneOutcome outcome = new SceneOutcome();
+		Map<SonosDevice, Current> current = new LinkedHashMap<>();
+		for (Map.Entry<SonosDevice, DesiredState> entry : scene.entrySet()) {
+			current.put(entry.getKey(), new Current(entry.getKey(), entry.getValue()));
+		}
+
+		// Rendering does not depend on grouping or transport
+		List<CompletableFuture<?>> rendering = new ArrayList<>();
+		for (Map.Entry<SonosDevice, DesiredState> entry : scene.entrySet()) {
+			SonosDevice device = entry.getKey();
+			rendering.add(Async.supply(() -> {
+				applyRendering(device, entry.getValue(), current.get(device), outcome);
+				return null;
+			}, executor));
+		}
+
+		Map<String, SonosDevice> byUID = new HashMap<>();
+		for (Map.Entry<SonosDevice, Current> entry : current.entrySet()) {
+			try {
+				byUID.put(get(entry.getValue().localUID), entry.getKey());
+			} catch (IOException | SonosControllerException e) {
+				// Reported by the group step of the device
+			}
+		}
+
+		// Leave groups before other devices join
+		List<CompletableFuture<?>> steps = new ArrayList<>();
+		for (Map.Entry<SonosDevice, DesiredState> entry : scene.entrySet()) {
+			SonosDevice device = entry.getKey();
+			Current cur = current.get(device);
+			if (entry.getValue().isStandalone()) {
+				steps.add(step(device, SceneAttribute.GROUP, outcome, () -> {
+					if (isAlone(get(cur.localUID), get(cur.coordinatorUID), get(cur.groupUIDs), scene, byUID)) {
+						return false;
+					}
+					device.unjoin();
+					return true;
+				}));
+			}
+		}
+		await(steps);
+
+		steps.clear();
+		for (Map.Entry<SonosDevice, DesiredState> entry : scene.entrySet()) {
+			SonosDevice device = entry.getKey();
+			Current cur = current.get(device);
+			String target = entry.getValue().getCoordinatorUID();
+			if (target == null) {
+				continue;
+			}
+			SonosDevice coordinator = byUID.get(target);
+			if (coordinator != null && outcome.getStatus(coordinator, SceneAttribute.GROUP) == Status.FAILED) {
+				outcome.addStatus(device, SceneAttribute.GROUP, Status.SKIPPED);
+				continue;
+			}
+			// Members of a coordinator leaving its group were handed to another member
+			boolean regrouped = coordinator != null
+					&& outcome.getStatus(coordinator, SceneAttribute.GROUP) == Status.APPLIED;
+			steps.add(step(device, SceneAttribute.GROUP, outcome, () -> {
+				if (!regrouped && get(cur.coordinatorUID).equals(target)) {
+					return false;
+				}
+				device.join(target);
+				return true;
+			}));
+		}
+		await(steps);
+
+		// Sources and play states once the final coordinators are known
+		steps.clear();
+		for (Map.Entry<SonosDevice, DesiredState> entry : scene.entrySet()) {
+			SonosDevice device = entry.getKey();
+			DesiredState state = entry.getValue();
+			if (state.getUri() == null && state.getPlayState() == null) {
+				continue;
+			}
+			if (outcome.getStatus(device, SceneAttribute.GROUP) == Status.FAILED
+					|| outcome.getStatus(device, SceneAttribute.GROUP) == Status.SKIPPED) {
+				skip(device, state, outcome);
+				continue;
+			}
+			steps.add(Async.supply(() -> {
+				applyTransport(device, state, current.get(device), outcome);
+				return null;
+			}, executor));
+		}
+		steps.addAll(rendering);
+		await(steps);
+		return outcome;
+	}
+
+	/**
+	 * Apply the scene without blocking. The returned future never completes
+	 * exceptionally, failures are reported in the outcome.
+	 *
+	 * @param scene the desired state of every device of the scene
+	 * @return the future of the outcome
+	 */
+	public CompletableFuture<SceneOutcome> applyAsync(Map<SonosDevice, DesiredState> scene) {
+		return Async.supply(() -> {
+			try {
+				return apply(scene);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while applying scene");
+			}
+		}, Async.POOL);
+	}
+
+	private void applyTransport(SonosDevice device, DesiredState state, Current cur, SceneOutcome outcome) {
+		boolean sourceChanged = false;
+		if (state.getUri() != null) {
+			Status status = run(device, SceneAttribute.SOURCE, outcome, () -> {
+				if (get(cur.uri).equals(state.getUri())) {
+					return false;
+				}
+				device.loadUri(state.getUri(), state.getMetadata());
+				return true;
+			});
+			if (status == Status.FAILED) {
+				if (state.getPlayState() != null) {
+					outcome.addStatus(device, SceneAttribute.PLAY_STATE, Status.SKIPPED);
+				}
+				return;
+			}
+			sourceChanged = status == Status.APPLIED;
+		}
+		if (state.getPlayState() != null) {
+			boolean force = sourceChanged;
+			run(device, SceneAttribute.PLAY_STATE, outcome, () -> {
+				// Loading a new source stops the transport
+				PlayState desired = state.getPlayState();
+				if (!force && (get(cur.playState) == desired
+						|| (desired == PlayState.PLAYING && get(cur.playState) == PlayState.TRANSITIONING))) {
+					return false;
+				}
+				if (desired == PlayState.PLAYING) {
+					device.play();
+				} else if (desired == PlayState.PAUSED_PLAYBACK) {
+					device.pause();
+				} else {
+					device.stop();
+				}
+				return true;
+			});
+		}
+	}
+
+	private void applyRendering(SonosDevice device, DesiredState state, Current cur, SceneOutcome outcome) {
+		if (state.getVolume() != null) {
+			run(device, SceneAttribute.VOLUME, outcome,
+					() -> change(cur.volume, state.getVolume(), device::setVolume));
+		}
+		if (state.getMuted() != null) {
+			run(device, SceneAttribute.MUTE, outcome, () -> change(cur.muted, state.getMuted(), device::setMute));
+		}
+		if (state.getBass() != null) {
+			run(device, SceneAttribute.BASS, outcome, () -> change(cur.bass, state.getBass(), device::setBass));
+		}
+		if (state.getTreble() != null) {
+			run(device, SceneAttribute.TREBLE, outcome,
+					() -> change(cur.treble, state.getTreble(), device::setTreble));
+		}
+		if (state.getLoudness() != null) {
+			run(device, SceneAttribute.LOUDNESS, outcome,
+					() -> change(cur.loudness, state.getLoudness(), device::setLoudness));
+		}
+		if (state.getNightMode() != null) {
+			run(device, SceneAttribute.NIGHT_MODE, outcome,
+					() -> change(cur.nightMode, state.getNightMode(), device::setNightMode));
+		}
+		if (state.getDialogMode() != null) {
+			run(device, SceneAttribute.DIALOG_MODE, outcome,
+					() -> change(cur.dialogMode, state.getDialogMode(), device::setDialogMode));
+		}
+	}
+
+	@FunctionalInterface
+	private interface Setter<T> {
+		void set(T value) throws IOException, SonosControllerException;
+	}
+
+	private static <T> boolean change(CompletableFuture<T> current, T desired, Setter<T> setter)
+			throws IOException, SonosControllerException {
+		if (get(current).equals(desired)) {
+			return false;
+		}
+		setter.set(desired);
+		return true;
+	}
+
+	private static void skip(SonosDevice device, DesiredState state, SceneOutcome outcome) {
+		if (state.getUri() != null) {
+			outcome.addStatus(device, SceneAttribute.SOURCE, Status.SKIPPED);
+		}
+		if (state.getPlayState() != null) {
+			outcome.addStatus(device, SceneAttribute.PLAY_STATE, Status.SKIPPED);
+		}
+	}
+
+	private CompletableFuture<Void> step(SonosDevice device, SceneAttribute attribute, SceneOutcome outcome,
+			Change change) {
+		return CompletableFuture.runAsync(() -> run(device, attribute, outcome, change), executor);
+	}
+
+	/**
+	 * Apply a change and record the outcome
+	 */
+	private static Status run(SonosDevice device, SceneAttribute attribute, SceneOutcome outcome, Change change) {
+		try {
+			Status status = change.apply() ? Status.APPLIED : Status.UNCHANGED;
+			outcome.addStatus(device, attribute, status);
+			return status;
+		} catch (IOException | SonosControllerException | RuntimeException e) {
+			outcome.addFailure(device, attribute, e);
+			return Status.FAILED;
+		}
+	}
+
+	/**
+	 * Wait for a read issued before
+	 */
+	private static <T> T get(CompletableFuture<T> future) throws IOException, SonosControllerException {
+		try {
+			return EventCondition.await(future);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading the current state");
+		}
+	}
+
+	private static void await(List<CompletableFuture<?>> steps) throws InterruptedException {
+		try {
+			EventCondition.await(Async.allOf(steps));
+		} catch (IOException | SonosControllerException e) {
+			// Failures are recorded per attribute
+		}
+	}
+
+	/**
+	 * @return true if the device coordinates its group and all other members shall
+	 *         join it according to the scene
+	 */
+	private static boolean isAlone(String localUID, String coordinatorUID, List<String> groupUIDs,
+			Map<SonosDevice, DesiredState> scene, Map<String, SonosDevice> byUID) {
+		if (!coordinatorUID.equals(localUID)) {
+			return false;
+		}
+		for (String uid : groupUIDs) {
+			if (uid.equals(localUID)) {
+				continue;
+			}
+			SonosDevice member = byUID.get(uid);
+			if (member == null || !localUID.equals(scene.get(member).getCoordinatorUID())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String currentUri(SonosDevice device) throws IOException, SonosControllerException {
+		String r = CommandBuilder.transport("GetMediaInfo").put("InstanceID", "0").executeOn(device.getIpAddress());
+		return ParserHelper.findOne("<CurrentURI>(.*?)</CurrentURI>", r);
+	}
+}
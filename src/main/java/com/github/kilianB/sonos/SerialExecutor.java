@@ -0,0 +1,76 @@
+package com.github.kilianB.sonos;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mailbox executing tasks one after another in submission order on a shared
+ * executor. Each device owns one, so commands to the same device never
+ * interleave while different devices proceed in parallel without holding a
+ * thread when idle.
+ *
+ * @author Kilian
+ *
+ */
+final class SerialExecutor implements Executor {
+
+	private static final Logger LOGGER = Logger.getLogger(SerialExecutor.class.getName());
+
+	private final Executor executor;
+
+	/** Guarded by this */
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private boolean draining;
+
+	/**
+	 * The thread currently draining the mailbox
+	 */
+	private volatile Thread activeThread;
+
+	SerialExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		synchronized (this) {
+			tasks.add(task);
+			if (draining) {
+				return;
+			}
+			draining = true;
+		}
+		executor.execute(this::drain);
+	}
+
+	/**
+	 * @return true if called from within a task of this executor. Tasks submitting
+	 *         and awaiting other tasks would deadlock and have to run them inline
+	 */
+	boolean isCurrentThread() {
+		return activeThread == Thread.currentThread();
+	}
+
+	private void drain() {
+		activeThread = Thread.currentThread();
+		while (true) {
+			Runnable task;
+			synchronized (this) {
+				task = tasks.poll();
+				if (task == null) {
+					activeThread = null;
+					draining = false;
+					return;
+				}
+			}
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Uncaught exception in device command", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
+import org.jdom2.input.SAXBuilder;
+
+import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.sonos.model.ActionArgument;
+import com.github.kilianB.sonos.model.ActionDescription;
+import com.github.kilianB.sonos.model.DeviceCapabilities;
+import com.github.kilianB.sonos.model.ServiceDescription;
+import com.github.kilianB.sonos.model.StateVariable;
+
+/**
+ * Fetches and parses device and service descriptions. Service descriptions only
+ * depend on model and software version and are shared by all devices of the
+ * same model.
+ *
+ * @author Kilian
+ *
+ */
+final class ServiceCatalog {
+
+	private static final String DEVICE_DESCRIPTION = "xml/device_description.xml";
+
+	/**
+	 * modelNumber/softwareVersion -&gt; capabilities
+	 */
+	private static final ConcurrentHashMap<String, DeviceCapabilities> CACHE = new ConcurrentHashMap<>();
+
+	// Hide the implicit public constructor.
+	private ServiceCatalog() {
+	}
+
+	/**
+	 * Resolve the capabilities of a device. Only the device description is
+	 * fetched if a device of the same model and software version was resolved
+	 * before.
+	 *
+	 * @param ip the ip of the device
+	 * @return the capabilities of the device
+	 * @throws IOException              IOException during HTTP Client operation .
+	 * @throws SonosControllerException if the descriptions are malformed
+	 */
+	static DeviceCapabilities resolve(String ip) throws IOException, SonosControllerException {
+		Element root = parse(CommandBuilder.fetch(ip, DEVICE_DESCRIPTION));
+		Namespace ns = root.getNamespace();
+		Element device = root.getChild("device", ns);
+		if (device == null) {
+			throw new SonosControllerException("Malformed device description received from " + ip);
+		}
+		String modelNumber = device.getChildTextTrim("modelNumber", ns);
+		String modelName = device.getChildTextTrim("modelName", ns);
+		String softwareVersion = device.getChildTextTrim("softwareVersion", ns);
+		String key = modelNumber + "/" + softwareVersion;
+
+		DeviceCapabilities capabilities = CACHE.get(key);
+		if (capabilities == null) {
+			List<ServiceDescription> services = new ArrayList<>();
+			collectServices(ip, device, ns, services);
+			capabilities = new DeviceCapabilities(modelNumber, modelName, softwareVersion, services);
+			// Devices of the same model resolved concurrently share one instance
+			DeviceCapabilities cached = CACHE.putIfAbsent(key, capabilities);
+			if (cached != null) {
+				capabilities = cached;
+			}
+		}
+		return capabilities;
+	}
+
+	/**
+	 * Parse the services of the device and all embedded devices
+	 */
+	private static void collectServices(String ip, Element device, Namespace ns, List<ServiceDescription> services)
+			throws IOException, SonosControllerException {
+		Element serviceList = device.getChild("serviceList", ns);
+		if (serviceList != null) {
+			for (Element service : serviceList.getChildren("service", ns)) {
+				String scpdURL = service.getChildTextTrim("SCPDURL", ns);
+				Element scpd = parse(CommandBuilder.fetch(ip, stripLeadingSlash(scpdURL)));
+				services.add(parseService(service, ns, scpd));
+			}
+		}
+		Element deviceList = device.getChild("deviceList", ns);
+		if (deviceList != null) {
+			for (Element embedded : deviceList.getChildren("device", ns)) {
+				collectServices(ip, embedded, ns, services);
+			}
+		}
+	}
+
+	private static ServiceDescription parseService(Element service, Namespace ns, Element scpd) {
+		Namespace scpdNs = scpd.getNamespace();
+
+		Map<String, StateVariable> variables = new LinkedHashMap<>();
+		Element stateTable = scpd.getChild("serviceStateTable", scpdNs);
+		if (stateTable != null) {
+			for (Element variable : stateTable.getChildren("stateVariable", scpdNs)) {
+				List<String> allowedValues = new ArrayList<>();
+				Element allowedList = variable.getChild("allowedValueList", scpdNs);
+				if (allowedList != null) {
+					for (Element allowed : allowedList.getChildren("allowedValue", scpdNs)) {
+						allowedValues.add(allowed.getTextTrim());
+					}
+				}
+				String name = variable.getChildTextTrim("name", scpdNs);
+				variables.put(name, new StateVariable(name, variable.getChildTextTrim("dataType", scpdNs),
+						"yes".equals(variable.getAttributeValue("sendEvents")), allowedValues));
+			}
+		}
+
+		Map<String, ActionDescription> actions = new LinkedHashMap<>();
+		Element actionList = scpd.getChild("actionList", scpdNs);
+		if (actionList != null) {
+			for (Element action : actionList.getChildren("action", scpdNs)) {
+				List<ActionArgument> arguments = new ArrayList<>();
+				Element argumentList = action.getChild("argumentList", scpdNs);
+				if (argumentList != null) {
+					for (Element argument : argumentList.getChildren("argument", scpdNs)) {
+						arguments.add(new ActionArgument(argument.getChildTextTrim("name", scpdNs),
+								"in".equals(argument.getChildTextTrim("direction", scpdNs)),
+								variables.get(argument.getChildTextTrim("relatedStateVariable", scpdNs))));
+					}
+				}
+				String name = action.getChildTextTrim("name", scpdNs);
+				actions.put(name, new ActionDescription(name, arguments));
+			}
+		}
+
+		return new ServiceDescription(service.getChildTextTrim("serviceType", ns),
+				service.getChildTextTrim("serviceId", ns), service.getChildTextTrim("controlURL", ns),
+				service.getChildTextTrim("eventSubURL", ns), actions, variables);
+	}
+
+	private static Element parse(String xml) throws SonosControllerException {
+		try {
+			Document document = new SAXBuilder().build(new StringReader(xml));
+			return document.getRootElement();
+		} catch (JDOMException | IOException e) {
+			throw new SonosControllerException("Malformed description: " + e.getMessage());
+		}
+	}
+
+	private static String stripLeadingSlash(String path) {
+		return path.startsWith("/") ? path.substring(1) : path;
+	}
+}
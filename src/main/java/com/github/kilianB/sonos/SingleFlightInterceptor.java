@@ -0,0 +1,58 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.kilianB.exception.SonosControllerException;
+
+/**
+ * Coalesces identical read only commands issued concurrently, e.g. multiple UI
+ * widgets polling the volume of the same device. Only the first command is
+ * sent; callers issuing the same command while it is in flight receive its
+ * response.
+ *
+ * <pre>
+ * SonosDevice.addCommandInterceptor(new SingleFlightInterceptor());
+ * </pre>
+ *
+ * Deadlines and cancellation of the first caller apply to all callers sharing
+ * the request.
+ *
+ * @author Kilian
+ *
+ */
+public class SingleFlightInterceptor implements CommandInterceptor {
+
+	private final ConcurrentHashMap<String, CompletableFuture<SoapResponse>> inFlight = new ConcurrentHashMap<>();
+
+	@Override
+	public SoapResponse intercept(Chain chain) throws IOException, SonosControllerException {
+		SoapCommand command = chain.command();
+		if (!command.isReadOnly()) {
+			return chain.proceed(command);
+		}
+		String key = command.getIp() + command.getEndpoint() + "#" + command.getBodyAsString();
+		CompletableFuture<SoapResponse> own = new CompletableFuture<>();
+		CompletableFuture<SoapResponse> existing = inFlight.putIfAbsent(key, own);
+		if (existing != null) {
+			try {
+				return EventCondition.await(existing);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a coalesced request");
+			}
+		}
+		try {
+			SoapResponse response = chain.proceed(command);
+			own.complete(response);
+			return response;
+		} catch (IOException | SonosControllerException | RuntimeException e) {
+			own.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, own);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.github.kilianB.sonos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single SOAP action about to be sent to a device. Passed to
+ * {@link CommandInterceptor}s.
+ *
+ * @author Kilian
+ *
+ */
+public final class SoapCommand {
+
+	private final String ip;
+	private final String endpoint;
+	private final String service;
+	private final String action;
+	private final Map<String, String> arguments;
+	private final byte[] body;
+	private final boolean readOnly;
+
+	/**
+	 * @param ip        the ip of the device
+	 * @param endpoint  the control url of the service e.g.
+	 *                  /MediaRenderer/AVTransport/Control
+	 * @param service   the service type e.g.
+	 *                  urn:schemas-upnp-org:service:AVTransport:1
+	 * @param action    the action e.g. Play
+	 * @param arguments the xml escaped arguments of the action
+	 * @param body      the raw SOAP envelope
+	 * @param readOnly  true if the action does not alter the state of the device
+	 */
+	public SoapCommand(String ip, String endpoint, String service, String action, Map<String, String> arguments,
+			byte[] body, boolean readOnly) {
+		this.ip = ip;
+		this.endpoint = endpoint;
+		this.service = service;
+		this.action = action;
+		this.arguments = Collections.unmodifiableMap(new LinkedHashMap<>(arguments));
+		this.body = body.clone();
+		this.readOnly = readOnly;
+	}
+
+	/**
+	 * @return the ip of the device the command is sent to
+	 */
+	public String getIp() {
+		return ip;
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public String getService() {
+		return service;
+	}
+
+	public String getAction() {
+		return action;
+	}
+
+	/**
+	 * @return the xml escaped arguments of the action
+	 */
+	public Map<String, String> getArguments() {
+		return arguments;
+	}
+
+	/**
+	 * @return the raw SOAP envelope sent as request body
+	 */
+	public byte[] getBody() {
+		return body.clone();
+	}
+
+	/**
+	 * @return the raw SOAP envelope as UTF-8 string
+	 */
+	public String getBodyAsString() {
+		return new String(body, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return true if the action only reads state of the device. Read only
+	 *         commands may be retried, cached or coalesced
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	@Override
+	public String toString() {
+		return "SoapCommand [ip=" + ip + ", service=" + service + ", action=" + action + ", arguments="
+				+ arguments + "]";
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.github.kilianB.sonos;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The raw response of a device to a {@link SoapCommand}.
+ *
+ * @author Kilian
+ *
+ */
+public final class SoapResponse {
+
+	private final String body;
+	private final long latencyNanos;
+
+	/**
+	 * @param body         the raw SOAP envelope returned by the device. UPnP
+	 *                     error envelopes are converted to exceptions after all
+	 *                     interceptors ran
+	 * @param latencyNanos the time it took to obtain the response. 0 for
+	 *                     responses not fetched from the device
+	 */
+	public SoapResponse(String body, long latencyNanos) {
+		this.body = body;
+		this.latencyNanos = latencyNanos;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	/**
+	 * @param unit the time unit of the returned value
+	 * @return the time it took to obtain the response including waiting for a
+	 *         free request slot and retries
+	 */
+	public long getLatency(TimeUnit unit) {
+		return unit.convert(latencyNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return "SoapResponse [latency=" + getLatency(TimeUnit.MILLISECONDS) + "ms, body=" + body + "]";
+	}
+
+}
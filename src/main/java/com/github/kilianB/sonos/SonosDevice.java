@@ -1,36 +1,62 @@
 package com.github.kilianB.sonos;
 
 import com.github.kilianB.exception.SonosControllerException;
+import com.github.kilianB.exception.UPnPSonosControllerException;
+import com.github.kilianB.exception.UnsupportedActionException;
 import com.github.kilianB.sonos.listener.AVTTransportListener;
+import com.github.kilianB.sonos.listener.GroupRenderingControlListener;
 import com.github.kilianB.sonos.listener.MediaRendererQueueListener;
 import com.github.kilianB.sonos.listener.RenderingControlListener;
 import com.github.kilianB.sonos.listener.SonosEventListener;
 import com.github.kilianB.sonos.listener.ZoneTopologyListener;
 import com.github.kilianB.sonos.model.AVTransportEvent;
+import com.github.kilianB.sonos.model.ActionDescription;
+import com.github.kilianB.sonos.model.ConfirmationLatency;
+import com.github.kilianB.sonos.model.DeviceCapabilities;
+import com.github.kilianB.sonos.model.DeviceReadiness;
+import com.github.kilianB.sonos.model.DeviceState;
 import com.github.kilianB.sonos.model.PlayMode;
 import com.github.kilianB.sonos.model.PlayState;
+import com.github.kilianB.sonos.model.RampType;
+import com.github.kilianB.sonos.model.ServiceDescription;
 import com.github.kilianB.sonos.model.SonosSpeakerInfo;
 import com.github.kilianB.sonos.model.SonosZoneInfo;
 import com.github.kilianB.sonos.model.TrackInfo;
 import com.github.kilianB.sonos.model.TrackMetadata;
+import com.github.kilianB.sonos.model.TransportMetrics;
+import com.github.kilianB.sonos.model.ZoneGroup;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
 import com.github.kilianB.uPnPClient.UPnPDevice;
 import com.github.kilianB.uPnPClient.UPnPEvent;
 import com.github.kilianB.uPnPClient.UPnPEventAdapterVerbose;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
 import java.net.UnknownHostException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleUnaryOperator;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 import org.apache.commons.text.StringEscapeUtils;
 import org.jdom2.Element;
+import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
 import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
 import org.jdom2.xpath.XPathExpression;
 import org.jdom2.xpath.XPathFactory;
 
@@ -50,7 +76,18 @@ public class SonosDevice {
 	/**
 	 * flag indicating if this devices is currently subscribed to the UPnP events
 	 */
-	private boolean uPnPSubscribed = false;
+	private volatile boolean uPnPSubscribed = false;
+
+	/**
+	 * Guards subscribing and unsubscribing from UPnP events
+	 */
+	private final Object subscriptionLock = new Object();
+
+	/**
+	 * System.nanoTime() of the last failed subscription attempt or 0. Guarded by
+	 * the subscription lock
+	 */
+	private long subscriptionFailedAt;
 
 	/**
 	 * UPnP standard Content Directory service, for functions relating to browsing,
@@ -119,6 +156,31 @@ public class SonosDevice {
 	 */
 	private static final String MUSIC_SERVICE_EVENT_ENDPOINT = "/MusicServices/Event";
 
+	/**
+	 * Time in ms a clip may play past its reported duration before it is treated
+	 * as finished
+	 */
+	static final long CLIP_GRACE = 10_000;
+
+	/**
+	 * Time in ms a clip without a reported duration may play before it is treated
+	 * as finished
+	 */
+	static final long CLIP_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * Time in ms before a failed event subscription is attempted again. Conditions
+	 * are polled in the meantime
+	 */
+	static final long SUBSCRIPTION_RETRY = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Time in ms group volume changes are considered part of the same gesture,
+	 * e.g. dragging a slider. The member volumes are only snapshotted once per
+	 * gesture
+	 */
+	static final long GROUP_VOLUME_GESTURE = 1000;
+
 	/**
 	 * The ip address of the sonos device
 	 */
@@ -127,11 +189,72 @@ public class SonosDevice {
 	/**
 	 * Sonos event handler being called upon state change
 	 */
-	private List<SonosEventListener> sonosEventHandlers = new ArrayList<SonosEventListener>();
+	private List<SonosEventListener> sonosEventHandlers = new CopyOnWriteArrayList<SonosEventListener>();
 
 	private List<String> eventSubscriptions = new ArrayList<String>();
 
+	/**
+	 * Zone group topology of the household as seen by this device. Kept up to date
+	 * by the topology event subscription
+	 */
+	private final ZoneTopology zoneTopology = new ZoneTopology();
+
+	/**
+	 * Lazily created local playback position. Only present once requested
+	 */
+	private volatile PositionClock positionClock;
+
+	/**
+	 * Lazily created outbox. Only present once requested
+	 */
+	private DeviceOutbox outbox;
+
+	/**
+	 * Services offered by this device. Resolved on first use
+	 */
+	private volatile DeviceCapabilities capabilities;
+
+	/**
+	 * Rendering and transport state mirrored from events and the commands sent by
+	 * this instance
+	 */
+	private final StateMirror mirror = new StateMirror(this::topologyChanged);
+
+	/**
+	 * Latency between writes and the events confirming them
+	 */
+	private final ConfirmationTracker confirmations = new ConfirmationTracker();
+
+	/**
+	 * Conflating lanes for commands where only the latest value matters
+	 */
+	private final CommandLane<Integer> volumeLane = new CommandLane<>(this::setVolume, Async.POOL);
+	private final CommandLane<Integer> seekLane = new CommandLane<>(this::seek, Async.POOL);
+	private final CommandLane<Integer> bassLane = new CommandLane<>(this::setBass, Async.POOL);
+	private final CommandLane<Integer> trebleLane = new CommandLane<>(this::setTreble, Async.POOL);
+
+	/**
+	 * Mailbox serializing transport commands and multi step sequences sent to this
+	 * device
+	 */
+	private final SerialExecutor commandQueue = new SerialExecutor(Async.POOL);
+
+	/**
+	 * Coordinator set by a grouping command of this instance. Preferred over the
+	 * topology model until the next topology event. Null if unknown
+	 */
+	private volatile String coordinatorIp;
+
+	/**
+	 * Group volume resulting from the last group volume change sent by this
+	 * instance. Null if the members or member volumes changed since and the
+	 * member volumes have to be snapshotted before the next change
+	 */
+	private volatile Integer groupVolumeApplied;
+	private volatile long groupVolumeAppliedAt;
+
 	// Cache some information which are likely to stay the same
+	private volatile String localUID;
 	private String roomName;
 	private String deviceName;
 
@@ -175,7 +298,12 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void play() throws IOException, SonosControllerException {
-		CommandBuilder.transport("Play").put("InstanceID", "0").put("Speed", "1").executeOn(this.ip);
+		inOrder(() -> onTransport(this::playOn));
+	}
+
+	private String playOn(String target) throws IOException, SonosControllerException {
+		return CommandBuilder.transport("Play").priority(RequestPriority.INTERACTIVE).put("InstanceID", "0")
+				.put("Speed", "1").executeOn(target);
 	}
 
 	/**
@@ -193,10 +321,38 @@ public class SonosDevice {
 			metadataString = metadata.toDIDL();
 		}
 		System.out.println("Play uri: " + uri);
-		CommandBuilder.transport("SetAVTransportURI").put("InstanceID", "0").put("CurrentURI", uri)
-				.put("CurrentURIMetaData", metadataString).executeOn(this.ip);
+		String didl = metadataString;
+		inOrder(() -> {
+			// Setting a uri turns the speaker into a standalone coordinator
+			CommandBuilder.transport("SetAVTransportURI").priority(RequestPriority.INTERACTIVE)
+					.put("InstanceID", "0").put("CurrentURI", uri).put("CurrentURIMetaData", didl).executeOn(this.ip);
+			pinCoordinator(this.ip);
+			playOn(this.ip);
+			return null;
+		});
+	}
 
-		this.play();
+	/**
+	 * Set the uri of the transport without starting playback. Turns the speaker
+	 * into a standalone coordinator.
+	 */
+	void loadUri(String uri, TrackMetadata metadata) throws IOException, SonosControllerException {
+		loadUri(uri, metadata == null ? "" : metadata.toDIDL());
+	}
+
+	/**
+	 * Set the uri of the transport without starting playback. A
+	 * {@code x-rincon:} uri joins the group of the referenced coordinator, every
+	 * other uri turns the speaker into a standalone coordinator.
+	 */
+	void loadUri(String uri, String didl) throws IOException, SonosControllerException {
+		inOrder(() -> CommandBuilder.transport("SetAVTransportURI").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("CurrentURI", uri).put("CurrentURIMetaData", didl).executeOn(this.ip));
+		if (uri.startsWith("x-rincon:")) {
+			pinCoordinatorUID(uri.substring("x-rincon:".length()));
+		} else {
+			pinCoordinator(this.ip);
+		}
 	}
 
 	/**
@@ -213,15 +369,25 @@ public class SonosDevice {
 		if (queueIndex < 1) {
 			throw new IllegalArgumentException("Queue index cannot be < 1.");
 		}
-		this.playUri("x-rincon-queue:" + this.getSpeakerInfo().getLocalUID() + "#0", null);
-		CommandBuilder.transport("Seek").put("InstanceID", "0").put("Unit", "TRACK_NR")
-				.put("Target", String.valueOf(queueIndex)).executeOn(this.ip);
-		this.play();
+		String queueUri = "x-rincon-queue:" + this.getLocalUID() + "#0";
+		inOrder(() -> {
+			this.playUri(queueUri, null);
+			CommandBuilder.transport("Seek").priority(RequestPriority.INTERACTIVE)
+					.put("InstanceID", "0").put("Unit", "TRACK_NR")
+					.put("Target", String.valueOf(queueIndex)).executeOn(this.ip);
+			playOn(this.ip);
+			return null;
+		});
 	}
 
 	/**
 	 * Pause current music, Play URI and resume (very useful for announcement). clip
 	 * is a blocking method. Take care !
+	 * <p>
+	 * The end of the clip is detected via UPnP events. Only if the device can not
+	 * be subscribed to the play state is polled. A clip failing to start or
+	 * playing longer than its reported duration is treated as finished. Other
+	 * calls to this device are not blocked while the clip plays.
 	 * 
 	 * @param uri      URI of a stream to be played.
 	 * @param metadata The track metadata to show in the player (DIDL format).
@@ -230,30 +396,542 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 * @throws InterruptedException     If the thread gets interrupted
 	 */
-	public synchronized void clip(String uri, TrackMetadata metadata)
+	public void clip(String uri, TrackMetadata metadata)
 			throws IOException, SonosControllerException, InterruptedException {
 		PlayState previousState = this.getPlayState();
 		TrackInfo previous = this.getCurrentTrackInfo();
-		this.playUri(uri, metadata);
+
+		// Register before starting the playback to not miss the end of short clips
+		CompletableFuture<PlayState> clipFinished = awaitPlaybackFinished(0, TimeUnit.MILLISECONDS);
+		int duration;
+		try {
+			this.playUri(uri, metadata);
+			duration = this.getCurrentTrackInfo().getDuration();
+		} catch (IOException | SonosControllerException e) {
+			clipFinished.cancel(false);
+			throw e;
+		}
+
+		// Do not wait forever for the end of a stream which never reports one
+		long bound = duration > 0 ? TimeUnit.SECONDS.toMillis(duration) + CLIP_GRACE : CLIP_TIMEOUT;
+		clipFinished.completeOnTimeout(PlayState.STOPPED, bound, TimeUnit.MILLISECONDS);
+		EventCondition.await(clipFinished);
 
 		// Fix. If list is empty this will throw an error
+		if (!this.getQueue(0, 1).isEmpty()) {
+			String queueUri = "x-rincon-queue:" + this.getLocalUID() + "#0";
+			inOrder(() -> {
+				this.playUri(queueUri, null);
+				CommandBuilder.transport("Seek").priority(RequestPriority.INTERACTIVE)
+						.put("InstanceID", "0").put("Unit", "TRACK_NR")
+						.put("Target", String.valueOf(previous.getQueueIndex())).executeOn(this.ip);
+				seekOn(this.ip, ParserHelper.secondsToFormatedTimestamp(previous.getPosition()));
+				if (previousState.equals(PlayState.PLAYING)) {
+					playOn(this.ip);
+				} else {
+					pauseOn(this.ip);
+				}
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Await the device to start and afterwards stop playing, e.g. once a clip set
+	 * via {@link #playUri(String, TrackMetadata)} finished. A playback failing to
+	 * start, transitioning and stopping without ever playing, completes the
+	 * future as well. Register the condition before starting the playback.
+	 * 
+	 * @param timeout the maximum time to wait. A value {@literal <}= 0 waits
+	 *                indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing once the playback stopped or exceptionally with
+	 *         a TimeoutException
+	 */
+	public CompletableFuture<PlayState> awaitPlaybackFinished(long timeout, TimeUnit unit) {
+		return awaitCondition(new PlaybackFinishedCondition(), timeout, unit);
+	}
 
-		// TODO I don't like vmichalak implementation. Can we resolve this without
-		// polling? Maybe even use the upnp listener track changed?
-		while (!this.getPlayState().equals(PlayState.STOPPED)) {
-			Thread.sleep(500);
+	/**
+	 * Completes once playback started or attempted to start and stopped again
+	 */
+	private class PlaybackFinishedCondition extends EventCondition<PlayState> {
+
+		private volatile boolean started;
+
+		@Override
+		public void playStateChanged(PlayState playState) {
+			if (observe(playState)) {
+				complete(playState);
+			}
 		}
-	
-		if (!this.getQueue(0,1).isEmpty()) {
-			this.playUri("x-rincon-queue:" + this.getSpeakerInfo().getLocalUID() + "#0", null);
-			CommandBuilder.transport("Seek").put("InstanceID", "0").put("Unit", "TRACK_NR")
-					.put("Target", String.valueOf(previous.getQueueIndex())).executeOn(this.ip);
-			this.seek(previous.getPosition());
-			if (previousState.equals(PlayState.PLAYING)) {
-				this.play();
+
+		@Override
+		protected PlayState poll() throws IOException, SonosControllerException {
+			PlayState playState = getPlayState();
+			return observe(playState) ? playState : null;
+		}
+
+		/**
+		 * @return true if the playback stopped after it started or attempted to start
+		 */
+		private boolean observe(PlayState playState) {
+			if (playState.equals(PlayState.PLAYING) || playState.equals(PlayState.TRANSITIONING)) {
+				started = true;
+				return false;
+			}
+			return started && playState.equals(PlayState.STOPPED);
+		}
+	}
+
+	/**
+	 * Await the device to report the given play state. The condition is only
+	 * satisfied by a state change occurring after this method was called,
+	 * therefore register the condition before triggering the action causing the
+	 * change.
+	 * 
+	 * @param playState the play state to wait for
+	 * @param timeout   the maximum time to wait. A value {@literal <}= 0 waits
+	 *                  indefinitely
+	 * @param unit      the time unit of the timeout
+	 * @return a future completing once the play state is reported or
+	 *         exceptionally with a TimeoutException
+	 */
+	public CompletableFuture<PlayState> awaitPlayState(PlayState playState, long timeout, TimeUnit unit) {
+		return awaitCondition(new EventCondition<PlayState>() {
+			@Override
+			public void playStateChanged(PlayState newPlayState) {
+				if (newPlayState.equals(playState)) {
+					complete(newPlayState);
+				}
+			}
+
+			@Override
+			protected PlayState poll() throws IOException, SonosControllerException {
+				PlayState current = getPlayState();
+				return current.equals(playState) ? current : null;
+			}
+		}, timeout, unit);
+	}
+
+	/**
+	 * Await the device to switch to a different track.
+	 * 
+	 * @param timeout the maximum time to wait. A value {@literal <}= 0 waits
+	 *                indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing with the new track or exceptionally with a
+	 *         TimeoutException
+	 */
+	public CompletableFuture<TrackInfo> awaitTrackChange(long timeout, TimeUnit unit) {
+		return awaitCondition(new EventCondition<TrackInfo>() {
+
+			private TrackInfo initial;
+
+			@Override
+			public void trackChanged(TrackInfo currentTrack) {
+				complete(currentTrack);
+			}
+
+			@Override
+			protected TrackInfo poll() throws IOException, SonosControllerException {
+				TrackInfo current = getCurrentTrackInfo();
+				if (initial == null) {
+					initial = current;
+					return null;
+				}
+				return current.sameBaseTrack(initial) ? null : current;
+			}
+		}, timeout, unit);
+	}
+
+	/**
+	 * Await the device to report the given volume.
+	 * 
+	 * @param volume  the volume to wait for
+	 * @param timeout the maximum time to wait. A value {@literal <}= 0 waits
+	 *                indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing once the volume is reported or exceptionally
+	 *         with a TimeoutException
+	 */
+	public CompletableFuture<Integer> awaitVolume(int volume, long timeout, TimeUnit unit) {
+		return awaitCondition(new EventCondition<Integer>() {
+			@Override
+			public void volumeChanged(int newVolume) {
+				if (newVolume == volume) {
+					complete(newVolume);
+				}
+			}
+
+			@Override
+			protected Integer poll() throws IOException, SonosControllerException {
+				int current = getVolume();
+				return current == volume ? current : null;
+			}
+		}, timeout, unit);
+	}
+
+	/**
+	 * Register a condition which is resolved by events emitted by this device. If
+	 * the device can not be subscribed to UPnP events the condition is polled
+	 * instead. The condition is removed once the returned future completes. The
+	 * underlying event subscription is kept alive to serve following conditions.
+	 * 
+	 * @param <T>       the value the condition resolves to
+	 * @param condition the condition to await
+	 * @param timeout   the maximum time to wait. A value {@literal <}= 0 waits
+	 *                  indefinitely
+	 * @param unit      the time unit of the timeout
+	 * @return the future of the condition
+	 */
+	public <T> CompletableFuture<T> awaitCondition(EventCondition<T> condition, long timeout, TimeUnit unit) {
+		CompletableFuture<T> future = condition.getFuture();
+
+		sonosEventHandlers.add(condition);
+		if (!uPnPSubscribed) {
+			subscribeToUPnPEvents();
+		}
+
+		ScheduledFuture<?> fallbackPoll = null;
+		if (!uPnPSubscribed) {
+			// The scheduler only triggers the poll. Requests block and are issued on the
+			// pool to not delay deadlines, fades and other polls
+			AtomicBoolean polling = new AtomicBoolean();
+			fallbackPoll = EventCondition.SCHEDULER.scheduleWithFixedDelay(() -> {
+				if (future.isDone() || !polling.compareAndSet(false, true)) {
+					return;
+				}
+				Async.supply(condition::poll, Async.POOL).whenComplete((value, exception) -> {
+					polling.set(false);
+					if (exception != null) {
+						future.completeExceptionally(exception instanceof CompletionException
+								&& exception.getCause() != null ? exception.getCause() : exception);
+					} else if (value != null) {
+						condition.complete(value);
+					}
+				});
+			}, EventCondition.POLL_INTERVAL, EventCondition.POLL_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+
+		if (timeout > 0) {
+			future.orTimeout(timeout, unit);
+		}
+
+		ScheduledFuture<?> poll = fallbackPoll;
+		future.whenComplete((value, exception) -> {
+			sonosEventHandlers.remove(condition);
+			if (poll != null) {
+				poll.cancel(false);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Set the volume and await the rendering control event reporting it.
+	 * 
+	 * @param volume  A volume value between 0 and 100
+	 * @param timeout the maximum time to wait for the confirmation. A value
+	 *                {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing with the confirmed volume or exceptionally with
+	 *         a TimeoutException
+	 * @see #getConfirmationLatencies()
+	 */
+	public CompletableFuture<Integer> setVolumeConfirmed(int volume, long timeout, TimeUnit unit) {
+		return confirm("SetVolume", mirrored(mirror.volume), new ValueCondition<>(volume, this::getVolume) {
+			@Override
+			public void volumeChanged(int newVolume) {
+				offer(newVolume);
+			}
+		}, () -> setVolume(volume), timeout, unit);
+	}
+
+	/**
+	 * Mute or unmute the speaker and await the rendering control event reporting
+	 * it.
+	 * 
+	 * @param state   true to mute
+	 * @param timeout the maximum time to wait for the confirmation. A value
+	 *                {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing with the confirmed mute state or exceptionally
+	 *         with a TimeoutException
+	 */
+	public CompletableFuture<Boolean> setMuteConfirmed(boolean state, long timeout, TimeUnit unit) {
+		return confirm("SetMute", mirrored(mirror.muted), new ValueCondition<>(state, this::isMuted) {
+			@Override
+			public void muteChanged(boolean muted) {
+				offer(muted);
+			}
+		}, () -> setMute(state), timeout, unit);
+	}
+
+	/**
+	 * Set the bass and await the rendering control event reporting it.
+	 * 
+	 * @param bass    Bass value between -10 and 10
+	 * @param timeout the maximum time to wait for the confirmation. A value
+	 *                {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing with the confirmed bass or exceptionally with a
+	 *         TimeoutException
+	 */
+	public CompletableFuture<Integer> setBassConfirmed(int bass, long timeout, TimeUnit unit) {
+		return confirm("SetBass", mirrored(mirror.bass), new ValueCondition<>(bass, this::getBass) {
+			@Override
+			public void bassChanged(int newBass) {
+				offer(newBass);
+			}
+		}, () -> setBass(bass), timeout, unit);
+	}
+
+	/**
+	 * Set the treble and await the rendering control event reporting it.
+	 * 
+	 * @param treble  Treble value between -10 and 10
+	 * @param timeout the maximum time to wait for the confirmation. A value
+	 *                {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing with the confirmed treble or exceptionally with
+	 *         a TimeoutException
+	 */
+	public CompletableFuture<Integer> setTrebleConfirmed(int treble, long timeout, TimeUnit unit) {
+		return confirm("SetTreble", mirrored(mirror.treble), new ValueCondition<>(treble, this::getTreble) {
+			@Override
+			public void trebleChanged(int newTreble) {
+				offer(newTreble);
+			}
+		}, () -> setTreble(treble), timeout, unit);
+	}
+
+	/**
+	 * Enable or disable loudness and await the rendering control event reporting
+	 * it.
+	 * 
+	 * @param loudness true to enable loudness
+	 * @param timeout  the maximum time to wait for the confirmation. A value
+	 *                 {@literal <}= 0 waits indefinitely
+	 * @param unit     the time unit of the timeout
+	 * @return a future completing with the confirmed loudness state or
+	 *         exceptionally with a TimeoutException
+	 */
+	public CompletableFuture<Boolean> setLoudnessConfirmed(boolean loudness, long timeout, TimeUnit unit) {
+		return confirm("SetLoudness", mirrored(mirror.loudness),
+				new ValueCondition<>(loudness, this::isLoudnessActivated) {
+					@Override
+					public void loudenessChanged(boolean newLoudness) {
+						offer(newLoudness);
+					}
+				}, () -> setLoudness(loudness), timeout, unit);
+	}
+
+	/**
+	 * Set the play mode of the queue and await the avtransport event reporting it.
+	 * 
+	 * @param playMode New play mode
+	 * @param timeout  the maximum time to wait for the confirmation. A value
+	 *                 {@literal <}= 0 waits indefinitely
+	 * @param unit     the time unit of the timeout
+	 * @return a future completing with the confirmed play mode or exceptionally
+	 *         with a TimeoutException
+	 */
+	public CompletableFuture<PlayMode> setPlayModeConfirmed(PlayMode playMode, long timeout, TimeUnit unit) {
+		return confirm("SetPlayMode", mirrored(mirror.playMode), new ValueCondition<>(playMode, this::getPlayMode) {
+			@Override
+			public void playModeChanged(PlayMode newPlayMode) {
+				offer(newPlayMode);
+			}
+		}, () -> setPlayMode(playMode), timeout, unit);
+	}
+
+	/**
+	 * Start playback and await the avtransport event reporting it.
+	 * 
+	 * @param timeout the maximum time to wait for the confirmation. A value
+	 *                {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing once the device reports playing or
+	 *         exceptionally with a TimeoutException
+	 */
+	public CompletableFuture<PlayState> playConfirmed(long timeout, TimeUnit unit) {
+		return confirmPlayState("Play", PlayState.PLAYING, this::play, timeout, unit);
+	}
+
+	/**
+	 * Pause playback and await the avtransport event reporting it.
+	 * 
+	 * @param timeout the maximum time to wait for the confirmation. A value
+	 *                {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing once the device reports paused playback or
+	 *         exceptionally with a TimeoutException
+	 */
+	public CompletableFuture<PlayState> pauseConfirmed(long timeout, TimeUnit unit) {
+		return confirmPlayState("Pause", PlayState.PAUSED_PLAYBACK, this::pause, timeout, unit);
+	}
+
+	/**
+	 * Stop playback and await the avtransport event reporting it.
+	 * 
+	 * @param timeout the maximum time to wait for the confirmation. A value
+	 *                {@literal <}= 0 waits indefinitely
+	 * @param unit    the time unit of the timeout
+	 * @return a future completing once the device reports stopped playback or
+	 *         exceptionally with a TimeoutException
+	 */
+	public CompletableFuture<PlayState> stopConfirmed(long timeout, TimeUnit unit) {
+		return confirmPlayState("Stop", PlayState.STOPPED, this::stop, timeout, unit);
+	}
+
+	private CompletableFuture<PlayState> confirmPlayState(String action, PlayState playState, WriteCall write,
+			long timeout, TimeUnit unit) {
+		return confirm(action, mirrored(mirror.playState), new ValueCondition<>(playState, this::getPlayState) {
+			@Override
+			public void playStateChanged(PlayState newPlayState) {
+				offer(newPlayState);
+			}
+		}, write, timeout, unit);
+	}
+
+	@FunctionalInterface
+	private interface WriteCall {
+		void send() throws IOException, SonosControllerException;
+	}
+
+	/**
+	 * Send a write and complete once an event reports the written value. The
+	 * device does not event values which did not change, therefore the write is
+	 * confirmed as soon as the device accepted it if the mirrored value already
+	 * equals the written one. Such writes are counted separately and not recorded
+	 * as confirmation latency. If the previous value is unknown and no event
+	 * arrives in time, the value is read once before failing with a
+	 * TimeoutException.
+	 * 
+	 * @param action    the name the latency is recorded for
+	 * @param previous  the mirrored value before the write or null if unknown
+	 * @param condition the condition awaiting the written value
+	 * @param write     sends the write
+	 */
+	private <T> CompletableFuture<T> confirm(String action, T previous, ValueCondition<T> condition,
+			WriteCall write, long timeout, TimeUnit unit) {
+		// Registered before sending so the event is not missed
+		CompletableFuture<T> reported = awaitCondition(condition, timeout, unit);
+		CompletableFuture<T> confirmed = new CompletableFuture<>();
+		long start = System.nanoTime();
+		Async.supply(() -> {
+			write.send();
+			return null;
+		}, Async.POOL).whenComplete((ignore, exception) -> {
+			if (exception != null) {
+				reported.completeExceptionally(exception instanceof CompletionException && exception.getCause() != null
+						? exception.getCause()
+						: exception);
+			} else if (condition.getExpected().equals(previous)) {
+				// Only the acknowledgement of the device, no event confirmed the write
+				if (confirmed.complete(previous)) {
+					confirmations.recordUnchanged(action);
+				}
+				reported.cancel(false);
+			}
+		});
+
+		reported.whenComplete((value, exception) -> {
+			if (exception == null) {
+				if (confirmed.complete(value)) {
+					confirmations.record(action, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+				}
+			} else if (confirmed.isDone()) {
+				// Completed by the acknowledgement of an unchanged value
+				return;
+			} else if (exception instanceof TimeoutException) {
+				confirmations.recordTimeout(action);
+				// The device may have had the value already without us knowing
+				Async.supply(condition::poll, Async.POOL).whenComplete((current, readFailure) -> {
+					if (current != null) {
+						confirmed.complete(current);
+					} else {
+						confirmed.completeExceptionally(exception);
+					}
+				});
 			} else {
-				this.pause();
+				confirmed.completeExceptionally(exception);
 			}
+		});
+		return confirmed;
+	}
+
+	/**
+	 * Run a sequence of commands atomically. Transport commands and sequences
+	 * submitted to the same device are executed one after another in submission
+	 * order, while different devices proceed in parallel. Commands issued from
+	 * within the sequence run inline. Interactive commands are never reordered,
+	 * their priority only applies to the http requests competing for a connection
+	 * to the device.
+	 *
+	 * <pre>
+	 * device.submit(d -&gt; {
+	 * 	d.clearQueue();
+	 * 	d.addToQueue(uri, null);
+	 * 	d.playFromQueue(1);
+	 * 	return null;
+	 * });
+	 * </pre>
+	 *
+	 * @param <T>      the result of the sequence
+	 * @param sequence the commands to run
+	 * @return a future completing with the result of the sequence
+	 */
+	public <T> CompletableFuture<T> submit(DeviceOperation<T> sequence) {
+		return Async.supply(() -> sequence.apply(this), commandQueue);
+	}
+
+	/**
+	 * Run an operation with a deadline. All requests the operation sends are
+	 * bounded by the remaining time, e.g. a volume change which is useless after
+	 * 300 ms. Cancelling the returned future aborts requests in flight, e.g. a
+	 * queue page the user is no longer interested in.
+	 *
+	 * <pre>
+	 * CompletableFuture&lt;List&lt;TrackMetadata&gt;&gt; page = device.callAsync(d -&gt; d.getQueue(0, 100), 0,
+	 * 		TimeUnit.MILLISECONDS);
+	 * // User navigated away
+	 * page.cancel(true);
+	 * </pre>
+	 *
+	 * @param <T>       the result of the operation
+	 * @param operation the operation to run
+	 * @param timeout   the deadline relative to now. A value {@literal <}= 0 does
+	 *                  not set a deadline but still allows cancellation
+	 * @param unit      the time unit of the timeout
+	 * @return a future completing with the result of the operation or
+	 *         exceptionally with a
+	 *         {@link com.github.kilianB.exception.DeadlineExceededException
+	 *         DeadlineExceededException} once the deadline passed. Requests aborted
+	 *         by cancellation throw a
+	 *         {@link com.github.kilianB.exception.CommandCancelledException
+	 *         CommandCancelledException} within the operation
+	 */
+	public <T> CompletableFuture<T> callAsync(DeviceOperation<T> operation, long timeout, TimeUnit unit) {
+		return CommandScope.supply(() -> operation.apply(this), timeout, unit, Async.POOL);
+	}
+
+	/**
+	 * Run the call in the mailbox of this device and block until it finished.
+	 * Calls issued from within a sequence run inline.
+	 */
+	private <T> T inOrder(Async.DeviceCall<T> call) throws IOException, SonosControllerException {
+		if (commandQueue.isCurrentThread()) {
+			return call.call();
+		}
+		// Carry deadline and cancellation over to the mailbox thread
+		CommandScope scope = CommandScope.current();
+		try {
+			return EventCondition.await(Async.supply(() -> CommandScope.runWithin(scope, call), commandQueue));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the command to complete");
 		}
 	}
 
@@ -265,7 +943,12 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void pause() throws IOException, SonosControllerException {
-		CommandBuilder.transport("Pause").put("InstanceID", "0").put("Speed", "1").executeOn(this.ip);
+		inOrder(() -> onTransport(this::pauseOn));
+	}
+
+	private String pauseOn(String target) throws IOException, SonosControllerException {
+		return CommandBuilder.transport("Pause").priority(RequestPriority.INTERACTIVE).put("InstanceID", "0")
+				.put("Speed", "1").executeOn(target);
 	}
 
 	/**
@@ -289,7 +972,8 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void stop() throws IOException, SonosControllerException {
-		CommandBuilder.transport("Stop").put("InstanceID", "0").put("Speed", "1").executeOn(this.ip);
+		inOrder(() -> onTransport(target -> CommandBuilder.transport("Stop").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("Speed", "1").executeOn(target)));
 	}
 
 	/**
@@ -302,14 +986,35 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void seek(String time) throws IOException, SonosControllerException {
-		CommandBuilder.transport("Seek").put("InstanceID", "0").put("Unit", "REL_TIME").put("Target", time)
-				.executeOn(this.ip);
+		inOrder(() -> onTransport(target -> seekOn(target, time)));
+	}
+
+	private String seekOn(String target, String time) throws IOException, SonosControllerException {
+		String r = CommandBuilder.transport("Seek").priority(RequestPriority.INTERACTIVE).put("InstanceID", "0")
+				.put("Unit", "REL_TIME").put("Target", time).executeOn(target);
+		PositionClock clock = this.positionClock;
+		if (clock != null) {
+			clock.seeked(ParserHelper.formatedTimestampToSeconds(time));
+		}
+		return r;
 	}
 
 	public void seek(int time) throws IOException, SonosControllerException {
 		seek(ParserHelper.secondsToFormatedTimestamp(time));
 	}
 
+	/**
+	 * Seek without blocking, e.g. while scrubbing. At most one seek request is in
+	 * flight. Positions submitted in the meantime replace each other and only the
+	 * latest one is sent.
+	 *
+	 * @param time the position in the current track in seconds
+	 * @return a future completing once this or a newer position was applied.
+	 */
+	public CompletableFuture<Void> seekAsync(int time) {
+		return seekLane.submit(time);
+	}
+
 	/**
 	 * Go to the next track on the queue.
 	 * 
@@ -318,7 +1023,8 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void next() throws IOException, SonosControllerException {
-		CommandBuilder.transport("Next").put("InstanceID", "0").put("Speed", "1").executeOn(this.ip);
+		inOrder(() -> onTransport(target -> CommandBuilder.transport("Next").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("Speed", "1").executeOn(target)));
 	}
 
 	/**
@@ -329,7 +1035,8 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void previous() throws IOException, SonosControllerException {
-		CommandBuilder.transport("Previous").put("InstanceID", "0").put("Speed", "1").executeOn(this.ip);
+		inOrder(() -> onTransport(target -> CommandBuilder.transport("Previous").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("Speed", "1").executeOn(target)));
 	}
 
 	/**
@@ -346,9 +1053,11 @@ public class SonosDevice {
 		if (metadata != null) {
 			metadataString = metadata.toDIDL();
 		}
-		CommandBuilder.transport("AddURIToQueue").put("InstanceID", "0").put("EnqueuedURI", uri)
-				.put("EnqueuedURIMetaData", metadataString).put("DesiredFirstTrackNumberEnqueued", "0")
-				.put("EnqueueAsNext", "1").executeOn(this.ip);
+		String didl = metadataString;
+		inOrder(() -> onTransport(target -> CommandBuilder.transport("AddURIToQueue")
+				.priority(RequestPriority.BACKGROUND).put("InstanceID", "0").put("EnqueuedURI", uri)
+				.put("EnqueuedURIMetaData", didl).put("DesiredFirstTrackNumberEnqueued", "0")
+				.put("EnqueueAsNext", "1").executeOn(target)));
 	}
 
 	/**
@@ -367,10 +1076,12 @@ public class SonosDevice {
 		if (metadata != null) {
 			metadataString = metadata.toDIDL();
 		}
-		CommandBuilder.transport("AddURIToQueue").put("InstanceID", "0").put("EnqueuedURI", uri)
-				.put("EnqueuedURIMetaData", metadataString)
+		String didl = metadataString;
+		inOrder(() -> onTransport(target -> CommandBuilder.transport("AddURIToQueue")
+				.priority(RequestPriority.BACKGROUND).put("InstanceID", "0").put("EnqueuedURI", uri)
+				.put("EnqueuedURIMetaData", didl)
 				.put("DesiredFirstTrackNumberEnqueued", Integer.toString(queueIndex)).put("EnqueueAsNext", "0")
-				.executeOn(this.ip);
+				.executeOn(target)));
 	}
 
 	/**
@@ -386,8 +1097,8 @@ public class SonosDevice {
 		if (queueIndex < 0) {
 			throw new IllegalArgumentException("Queue index cannot be < 0.");
 		}
-		CommandBuilder.transport("RemoveTrackFromQueue").put("InstanceID", "0").put("ObjectID", "Q:0/" + queueIndex)
-				.put("UpdateID", "0").executeOn(this.ip);
+		inOrder(() -> onTransport(target -> CommandBuilder.transport("RemoveTrackFromQueue").put("InstanceID", "0")
+				.put("ObjectID", "Q:0/" + queueIndex).put("UpdateID", "0").executeOn(target)));
 	}
 
 	/**
@@ -401,18 +1112,121 @@ public class SonosDevice {
 	public TrackInfo getCurrentTrackInfo() throws IOException, SonosControllerException {
 		String r = CommandBuilder.transport("GetPositionInfo").put("InstanceID", "0").put("Channel", "Master")
 				.executeOn(this.ip);
-		String track = ParserHelper.findOne("<Track>([0-9]*)</Track>", r);
+		// Outputs in response order
+		String[] values = ParserHelper.findTags(r, "Track", "TrackDuration", "TrackMetaData", "TrackURI", "RelTime");
 		int trackNumber = -1;
-		if (!track.equals("NOT_IMPLEMENTED") && !track.equals("")) {
-			trackNumber = Integer.valueOf(track);
+		if (values[0].matches("[0-9]+")) {
+			trackNumber = Integer.valueOf(values[0]);
+		}
+		return new TrackInfo(trackNumber, ParserHelper.formatedTimestampToSeconds(values[1]),
+				ParserHelper.formatedTimestampToSeconds(values[4]), values[3], TrackMetadata.parse(values[2]));
+	}
+
+	/**
+	 * Get the services, actions and state variables offered by this device. The
+	 * device description is fetched once per device, the service descriptions
+	 * once per model and software version.
+	 * 
+	 * @return the capabilities of this device
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException if the descriptions are malformed
+	 */
+	public DeviceCapabilities getCapabilities() throws IOException, SonosControllerException {
+		DeviceCapabilities result = capabilities;
+		if (result == null) {
+			result = ServiceCatalog.resolve(ip);
+			capabilities = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Invoke any action offered by this device. The action is looked up in the
+	 * service description, arguments are validated and sent in declaration order
+	 * and outputs are converted according to the data type of their state
+	 * variable (integer, long for ui4, double, boolean or string). This allows to
+	 * use services without a dedicated method e.g. alarms or system properties.
+	 * 
+	 * <pre>
+	 * Map&lt;String, Object&gt; alarms = device.invoke(DeviceCapabilities.ALARM_CLOCK_SERVICE, "ListAlarms",
+	 * 		Collections.emptyMap());
+	 * String alarmList = (String) alarms.get("CurrentAlarmList");
+	 * </pre>
+	 * 
+	 * @param service   the service type or service id
+	 * @param action    the name of the action
+	 * @param arguments the input arguments by name. Values are converted via
+	 *                  toString, booleans to 1 or 0. {@code InstanceID} defaults to
+	 *                  0 if omitted
+	 * @return the output arguments by name in declaration order
+	 * @throws IOException                 IOException during HTTP Client operation
+	 *                                     . Sending the command.
+	 * @throws UnsupportedActionException  if the service or action is not offered
+	 *                                     by this device
+	 * @throws SonosControllerException    UPnP Error returned by the device
+	 * @throws IllegalArgumentException    if an argument is missing, unknown or
+	 *                                     not allowed
+	 */
+	public Map<String, Object> invoke(String service, String action, Map<String, ?> arguments)
+			throws IOException, SonosControllerException {
+		ServiceDescription description = getCapabilities().getService(service);
+		ActionDescription actionDescription = description == null ? null : description.getAction(action);
+		if (actionDescription == null) {
+			throw new UnsupportedActionException(service + "#" + action + " is not supported by "
+					+ capabilities.getModelName() + " (" + ip + ")");
+		}
+		return CompiledAction.of(description, actionDescription).invoke(ip, arguments);
+	}
+
+	/**
+	 * Fail without a round trip if the model of this device does not offer the
+	 * service
+	 */
+	private void requireService(String service, String feature) throws IOException, SonosControllerException {
+		if (!getCapabilities().hasService(service)) {
+			throw new UnsupportedActionException(
+					feature + " is not supported by " + capabilities.getModelName() + " (" + ip + ")");
+		}
+	}
+
+	/**
+	 * Get the outbox of this device. State setting commands sent via the outbox
+	 * are held back while the device is unreachable and applied once it is back.
+	 * 
+	 * @return the outbox of this device
+	 */
+	public synchronized DeviceOutbox getOutbox() {
+		if (outbox == null) {
+			outbox = new DeviceOutbox(this);
 		}
-		return new TrackInfo(trackNumber,
-				ParserHelper.formatedTimestampToSeconds(
-						ParserHelper.findOne("<TrackDuration>([0-9]*:[0-9]*:[0-9]*)</TrackDuration>", r)),
-				ParserHelper.formatedTimestampToSeconds(
-						ParserHelper.findOne("<RelTime>([0-9]*:[0-9]*:[0-9]*)</RelTime>", r)),
-				ParserHelper.findOne("<TrackURI>(.*)</TrackURI>", r),
-				TrackMetadata.parse(ParserHelper.findOne("<TrackMetaData>(.*)</TrackMetaData>", r)));
+		return outbox;
+	}
+
+	/**
+	 * Get the local playback position clock of this device. The first call
+	 * registers the clock as event listener and seeds it with the current
+	 * position of the device. Afterwards {@link PositionClock#currentPosition()}
+	 * can be queried as often as needed without issuing network calls.
+	 * 
+	 * @return the position clock of this device
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public synchronized PositionClock getPositionClock() throws IOException, SonosControllerException {
+		if (positionClock == null) {
+			PositionClock clock = new PositionClock(this);
+			registerSonosEventListener(clock);
+			try {
+				clock.sync();
+			} catch (IOException | SonosControllerException e) {
+				unregisterSonosEventListener(clock);
+				throw e;
+			}
+			positionClock = clock;
+		}
+		return positionClock;
 	}
 
 	/**
@@ -437,8 +1251,8 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void setPlayMode(PlayMode playMode) throws IOException, SonosControllerException {
-		CommandBuilder.transport("SetPlayMode").put("InstanceID", "0").put("NewPlayMode", playMode.toString())
-				.executeOn(this.ip);
+		inOrder(() -> onTransport(target -> CommandBuilder.transport("SetPlayMode").put("InstanceID", "0")
+				.put("NewPlayMode", playMode.toString()).executeOn(target)));
 	}
 
 	/**
@@ -449,7 +1263,8 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void clearQueue() throws IOException, SonosControllerException {
-		CommandBuilder.transport("RemoveAllTracksFromQueue").put("InstanceID", "0").executeOn(this.ip);
+		inOrder(() -> onTransport(target -> CommandBuilder.transport("RemoveAllTracksFromQueue").put("InstanceID", "0")
+				.executeOn(target)));
 	}
 
 	/**
@@ -485,7 +1300,7 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void join(SonosDevice master) throws IOException, SonosControllerException {
-		this.join(master.getSpeakerInfo().getLocalUID());
+		this.join(master.getLocalUID());
 	}
 
 	/**
@@ -497,8 +1312,9 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void join(String masterUID) throws IOException, SonosControllerException {
-		CommandBuilder.transport("SetAVTransportURI").put("InstanceID", "0").put("CurrentURI", "x-rincon:" + masterUID)
-				.put("CurrentURIMetaData", "").executeOn(this.ip);
+		inOrder(() -> CommandBuilder.transport("SetAVTransportURI").put("InstanceID", "0")
+				.put("CurrentURI", "x-rincon:" + masterUID).put("CurrentURIMetaData", "").executeOn(this.ip));
+		pinCoordinatorUID(masterUID);
 	}
 
 	/**
@@ -509,8 +1325,39 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void unjoin() throws IOException, SonosControllerException {
-		CommandBuilder.transport("BecomeCoordinatorOfStandaloneGroup").put("InstanceID", "0").put("Speed", "1")
-				.executeOn(this.ip);
+		inOrder(() -> CommandBuilder.transport("BecomeCoordinatorOfStandaloneGroup").put("InstanceID", "0")
+				.put("Speed", "1").executeOn(this.ip));
+		pinCoordinator(this.ip);
+	}
+
+	/**
+	 * Hand the coordination of the group to another member. Playback continues
+	 * without interruption on the new coordinator.
+	 * 
+	 * @param newCoordinatorUID the uid of the member becoming the coordinator
+	 * @param rejoinGroup       true if this speaker stays in the group, false if it
+	 *                          leaves the group and becomes a standalone speaker
+	 * @throws IOException                IOException during HTTP Client operation
+	 *                                    . Sending the command.
+	 * @throws UnsupportedActionException if the software of the speaker does not
+	 *                                    support delegating the coordination
+	 * @throws SonosControllerException   UPnP Error returned by the device
+	 */
+	public void delegateGroupCoordinationTo(String newCoordinatorUID, boolean rejoinGroup)
+			throws IOException, SonosControllerException {
+		if (!getCapabilities().supportsAction(DeviceCapabilities.AV_TRANSPORT_SERVICE,
+				"DelegateGroupCoordinationTo")) {
+			throw new UnsupportedActionException("Delegating the group coordination is not supported by "
+					+ capabilities.getModelName() + " (" + ip + ")");
+		}
+		inOrder(() -> CommandBuilder.transport("DelegateGroupCoordinationTo").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("NewCoordinator", newCoordinatorUID)
+				.put("RejoinGroup", rejoinGroup ? "1" : "0").executeOn(this.ip));
+		if (rejoinGroup) {
+			pinCoordinatorUID(newCoordinatorUID);
+		} else {
+			pinCoordinator(this.ip);
+		}
 	}
 
 	/**
@@ -521,9 +1368,11 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void switchToLineIn() throws IOException, SonosControllerException {
+		requireService(DeviceCapabilities.AUDIO_IN_SERVICE, "Line-in");
 		String uid = this.getSpeakerInfo().getLocalUID();
-		CommandBuilder.transport("SetAVTransportURI").put("InstanceID", "0").put("CurrentURI", "x-rincon-stream:" + uid)
-				.put("CurrentURIMetaData", "").executeOn(this.ip);
+		inOrder(() -> CommandBuilder.transport("SetAVTransportURI").put("InstanceID", "0")
+				.put("CurrentURI", "x-rincon-stream:" + uid).put("CurrentURIMetaData", "").executeOn(this.ip));
+		pinCoordinator(this.ip);
 	}
 
 	/**
@@ -535,10 +1384,12 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void switchToTV() throws IOException, SonosControllerException {
+		requireService(DeviceCapabilities.HT_CONTROL_SERVICE, "TV input");
 		String uid = this.getSpeakerInfo().getLocalUID();
-		CommandBuilder.transport("SetAVTransportURI").put("InstanceID", "0")
+		inOrder(() -> CommandBuilder.transport("SetAVTransportURI").put("InstanceID", "0")
 				.put("CurrentURI", "x-sonos-htastream:" + uid + ":spdif").put("CurrentURIMetaData", "")
-				.executeOn(this.ip);
+				.executeOn(this.ip));
+		pinCoordinator(this.ip);
 	}
 
 	/**
@@ -552,7 +1403,9 @@ public class SonosDevice {
 	public int getVolume() throws IOException, SonosControllerException {
 		String r = CommandBuilder.rendering("GetVolume").put("InstanceID", "0").put("Channel", "Master")
 				.executeOn(this.ip);
-		return Integer.parseInt(ParserHelper.findOne("<CurrentVolume>([0-9]*)</CurrentVolume>", r));
+		int volume = Integer.parseInt(ParserHelper.findOne("<CurrentVolume>([0-9]*)</CurrentVolume>", r));
+		mirror.volume = volume;
+		return volume;
 	}
 
 	/**
@@ -564,8 +1417,106 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void setVolume(int volume) throws IOException, SonosControllerException {
-		CommandBuilder.rendering("SetVolume").put("InstanceID", "0").put("Channel", "Master")
+		CommandBuilder.rendering("SetVolume").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("Channel", "Master")
 				.put("DesiredVolume", String.valueOf(volume)).executeOn(this.ip);
+		mirror.volume = volume;
+		groupVolumeApplied = null;
+	}
+
+	/**
+	 * Change the volume relative to the current volume. The device applies the
+	 * change, a single request is sent.
+	 * 
+	 * @param adjustment the change of the volume e.g. 5 or -5. The device clamps
+	 *                   the resulting volume to 0 - 100
+	 * @return the new volume
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public int setRelativeVolume(int adjustment) throws IOException, SonosControllerException {
+		String r = CommandBuilder.rendering("SetRelativeVolume").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("Channel", "Master").put("Adjustment", String.valueOf(adjustment))
+				.executeOn(this.ip);
+		int volume = Integer.parseInt(ParserHelper.findOne("<NewVolume>([0-9]*)</NewVolume>", r));
+		mirror.volume = volume;
+		groupVolumeApplied = null;
+		return volume;
+	}
+
+	/**
+	 * Set the volume without blocking, e.g. from a slider. At most one volume
+	 * request is in flight. Values submitted in the meantime replace each other
+	 * and only the latest one is sent, so the final value is always applied.
+	 *
+	 * @param volume A volume value between 0 and 100
+	 * @return a future completing once this or a newer value was applied.
+	 */
+	public CompletableFuture<Void> setVolumeAsync(int volume) {
+		return volumeLane.submit(volume);
+	}
+
+	/**
+	 * Ramp the volume on the device. The entire ramp is executed by the speaker,
+	 * only a single request is sent.
+	 * 
+	 * @param type   the ramp defining duration and shape
+	 * @param volume the target volume between 0 and 100
+	 * @return the duration of the ramp in seconds as reported by the device. 0 if
+	 *         the device did not report a duration
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public int rampToVolume(RampType type, int volume) throws IOException, SonosControllerException {
+		if (volume > 100 || volume < 0) {
+			throw new IllegalArgumentException("Volume value need to be between 0 and 100");
+		}
+		String r = CommandBuilder.rendering("RampToVolume").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("Channel", "Master").put("RampType", type.getValue())
+				.put("DesiredVolume", String.valueOf(volume)).put("ResetVolumeAfter", "0").put("ProgramURI", "")
+				.executeOn(this.ip);
+		groupVolumeApplied = null;
+		String rampTime = ParserHelper.findOne("<RampTime>([0-9]*)</RampTime>", r);
+		return rampTime.isEmpty() ? 0 : Integer.parseInt(rampTime);
+	}
+
+	/**
+	 * Linearly fade the volume on the client side. Prefer
+	 * {@link #rampToVolume(RampType, int)} if one of the ramp types fits.
+	 * 
+	 * @param volume   the target volume between 0 and 100
+	 * @param duration the duration of the fade
+	 * @param unit     the time unit of the duration
+	 * @return a future completing once the target volume was applied
+	 * @see #fadeVolume(int, long, TimeUnit, DoubleUnaryOperator)
+	 */
+	public CompletableFuture<Void> fadeVolume(int volume, long duration, TimeUnit unit) {
+		return fadeVolume(volume, duration, unit, DoubleUnaryOperator.identity());
+	}
+
+	/**
+	 * Fade the volume on the client side following a custom curve. Steps of all
+	 * fading devices are rate limited by a shared scheduler, intermediate values
+	 * are skipped if the device can not keep up. A fade started while another fade
+	 * of this device is running replaces the running fade.
+	 * 
+	 * @param volume   the target volume between 0 and 100
+	 * @param duration the duration of the fade
+	 * @param unit     the time unit of the duration
+	 * @param curve    maps the elapsed fraction of the duration [0,1] to the
+	 *                 fraction of the volume change [0,1], e.g.
+	 *                 {@code p -> p * p} for a slow start
+	 * @return a future completing once the target volume was applied. Cancelling
+	 *         the future stops the fade at the current volume
+	 */
+	public CompletableFuture<Void> fadeVolume(int volume, long duration, TimeUnit unit,
+			DoubleUnaryOperator curve) {
+		if (volume > 100 || volume < 0) {
+			throw new IllegalArgumentException("Volume value need to be between 0 and 100");
+		}
+		return VolumeFader.shared().fade(this, mirrored(mirror.volume), volume, unit.toMillis(duration), curve);
 	}
 
 	/**
@@ -579,7 +1530,9 @@ public class SonosDevice {
 	public boolean isMuted() throws IOException, SonosControllerException {
 		String r = CommandBuilder.rendering("GetMute").put("InstanceID", "0").put("Channel", "Master")
 				.executeOn(this.ip);
-		return ParserHelper.findOne("<CurrentMute>([01])</CurrentMute>", r).equals("1") ? true : false;
+		boolean muted = ParserHelper.findOne("<CurrentMute>([01])</CurrentMute>", r).equals("1");
+		mirror.muted = muted;
+		return muted;
 	}
 
 	/**
@@ -591,19 +1544,145 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void setMute(boolean state) throws IOException, SonosControllerException {
-		CommandBuilder.rendering("SetMute").put("InstanceID", "0").put("Channel", "Master")
+		CommandBuilder.rendering("SetMute").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("Channel", "Master")
 				.put("DesiredMute", state ? "1" : "0").executeOn(this.ip);
+		mirror.muted = state;
 	}
 
 	/**
-	 * Mute or unmute the speaker.
+	 * Mute or unmute the speaker. Only a single request is sent if the mute state
+	 * is mirrored from events.
 	 * 
 	 * @throws IOException              IOException during HTTP Client operation .
 	 *                                  Sending the command.
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void switchMute() throws IOException, SonosControllerException {
-		setMute(!isMuted());
+		Boolean muted = mirrored(mirror.muted);
+		setMute(!(muted != null ? muted : isMuted()));
+	}
+
+	/**
+	 * Get the volume of the group this speaker belongs to. The request is sent to
+	 * the group coordinator.
+	 * 
+	 * @return A volume value between 0 and 100
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public int getGroupVolume() throws IOException, SonosControllerException {
+		String r = onTransport(
+				target -> CommandBuilder.groupRendering("GetGroupVolume").put("InstanceID", "0").executeOn(target));
+		return Integer.parseInt(ParserHelper.findOne("<CurrentVolume>([0-9]*)</CurrentVolume>", r));
+	}
+
+	/**
+	 * Set the volume of the group this speaker belongs to with a single request.
+	 * The coordinator scales the volume of all members keeping their relative
+	 * balance. The member volumes are snapshotted first if the members or their
+	 * volumes changed since the last group volume change.
+	 * 
+	 * @param volume A volume value between 0 and 100
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public void setGroupVolume(int volume) throws IOException, SonosControllerException {
+		if (volume > 100 || volume < 0) {
+			throw new IllegalArgumentException("Volume value need to be between 0 and 100");
+		}
+		onTransport(target -> {
+			snapshotGroupVolume(target);
+			return CommandBuilder.groupRendering("SetGroupVolume").priority(RequestPriority.INTERACTIVE)
+					.put("InstanceID", "0").put("DesiredVolume", String.valueOf(volume)).executeOn(target);
+		});
+		groupVolumeApplied(volume);
+	}
+
+	/**
+	 * Change the volume of the group this speaker belongs to relative to the
+	 * current group volume. The member volumes are snapshotted first if the
+	 * members or their volumes changed since the last group volume change.
+	 * 
+	 * @param adjustment the change of the volume e.g. 5 or -5
+	 * @return the new group volume
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public int setRelativeGroupVolume(int adjustment) throws IOException, SonosControllerException {
+		String r = onTransport(target -> {
+			snapshotGroupVolume(target);
+			return CommandBuilder.groupRendering("SetRelativeGroupVolume").priority(RequestPriority.INTERACTIVE)
+					.put("InstanceID", "0").put("Adjustment", String.valueOf(adjustment)).executeOn(target);
+		});
+		int volume = Integer.parseInt(ParserHelper.findOne("<NewVolume>([0-9]*)</NewVolume>", r));
+		groupVolumeApplied(volume);
+		return volume;
+	}
+
+	/**
+	 * Snapshot the member volumes on the coordinator once at the start of a group
+	 * volume gesture. The coordinator scales the members relative to the last
+	 * snapshot, without it individual volume changes made since are lost.
+	 */
+	private void snapshotGroupVolume(String target) throws IOException, SonosControllerException {
+		Integer applied = groupVolumeApplied;
+		if (applied != null) {
+			if (System.nanoTime() - groupVolumeAppliedAt < TimeUnit.MILLISECONDS.toNanos(GROUP_VOLUME_GESTURE)) {
+				return;
+			}
+			// Member volume changes show up as a different group volume
+			Integer evented = mirrored(mirror.groupVolume);
+			if (evented != null && evented.equals(applied)) {
+				return;
+			}
+		}
+		CommandBuilder.groupRendering("SnapshotGroupVolume").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").executeOn(target);
+	}
+
+	private void groupVolumeApplied(int volume) {
+		groupVolumeAppliedAt = System.nanoTime();
+		groupVolumeApplied = volume;
+	}
+
+	/**
+	 * Members joined or left a group or the coordinator of a group changed
+	 */
+	private void topologyChanged() {
+		pinCoordinator(null);
+		groupVolumeApplied = null;
+	}
+
+	/**
+	 * Return the mute state of the group this speaker belongs to.
+	 * 
+	 * @return True if the group is muted
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public boolean isGroupMuted() throws IOException, SonosControllerException {
+		String r = onTransport(
+				target -> CommandBuilder.groupRendering("GetGroupMute").put("InstanceID", "0").executeOn(target));
+		return ParserHelper.findOne("<CurrentMute>([01])</CurrentMute>", r).equals("1");
+	}
+
+	/**
+	 * Mute or unmute all members of the group this speaker belongs to with a
+	 * single request.
+	 * 
+	 * @param state True to mute, False to unmute
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public void setGroupMute(boolean state) throws IOException, SonosControllerException {
+		onTransport(target -> CommandBuilder.groupRendering("SetGroupMute").priority(RequestPriority.INTERACTIVE)
+				.put("InstanceID", "0").put("DesiredMute", state ? "1" : "0").executeOn(target));
 	}
 
 	/**
@@ -617,7 +1696,9 @@ public class SonosDevice {
 	public int getBass() throws IOException, SonosControllerException {
 		String r = CommandBuilder.rendering("GetBass").put("InstanceID", "0").put("Channel", "Master")
 				.executeOn(this.ip);
-		return Integer.parseInt(ParserHelper.findOne("<CurrentBass>(.*)</CurrentBass>", r));
+		int bass = Integer.parseInt(ParserHelper.findOne("<CurrentBass>(.*)</CurrentBass>", r));
+		mirror.bass = bass;
+		return bass;
 	}
 
 	/**
@@ -634,6 +1715,21 @@ public class SonosDevice {
 		}
 		CommandBuilder.rendering("SetBass").put("InstanceID", "0").put("DesiredBass", String.valueOf(bass))
 				.executeOn(this.ip);
+		mirror.bass = bass;
+	}
+
+	/**
+	 * Set the bass EQ without blocking. Values submitted while a request is in
+	 * flight replace each other and only the latest one is sent.
+	 *
+	 * @param bass Value between 10 and -10
+	 * @return a future completing once this or a newer value was applied.
+	 */
+	public CompletableFuture<Void> setBassAsync(int bass) {
+		if (bass > 10 || bass < -10) {
+			throw new IllegalArgumentException("Bass value need to be between 10 and -10");
+		}
+		return bassLane.submit(bass);
 	}
 
 	/**
@@ -647,7 +1743,9 @@ public class SonosDevice {
 	public boolean isLoudnessActivated() throws IOException, SonosControllerException {
 		String r = CommandBuilder.rendering("GetLoudness").put("InstanceID", "0").put("Channel", "Master")
 				.executeOn(this.ip);
-		return ParserHelper.findOne("<CurrentLoudness>(.*)</CurrentLoudness>", r).equals("1") ? true : false;
+		boolean loudness = ParserHelper.findOne("<CurrentLoudness>(.*)</CurrentLoudness>", r).equals("1");
+		mirror.loudness = loudness;
+		return loudness;
 	}
 
 	/**
@@ -661,6 +1759,7 @@ public class SonosDevice {
 	public void setLoudness(boolean loudness) throws IOException, SonosControllerException {
 		CommandBuilder.rendering("SetLoudness").put("InstanceID", "0").put("Channel", "Master")
 				.put("DesiredLoudness", loudness ? "1" : "0").executeOn(this.ip);
+		mirror.loudness = loudness;
 	}
 
 	/**
@@ -674,7 +1773,9 @@ public class SonosDevice {
 	public int getTreble() throws IOException, SonosControllerException {
 		String r = CommandBuilder.rendering("GetTreble").put("InstanceID", "0").put("Channel", "Master")
 				.executeOn(this.ip);
-		return Integer.parseInt(ParserHelper.findOne("<CurrentTreble>(.*)</CurrentTreble>", r));
+		int treble = Integer.parseInt(ParserHelper.findOne("<CurrentTreble>(.*)</CurrentTreble>", r));
+		mirror.treble = treble;
+		return treble;
 	}
 
 	/**
@@ -691,6 +1792,21 @@ public class SonosDevice {
 		}
 		CommandBuilder.rendering("SetTreble").put("InstanceID", "0").put("DesiredTreble", String.valueOf(treble))
 				.executeOn(this.ip);
+		mirror.treble = treble;
+	}
+
+	/**
+	 * Set the treble EQ without blocking. Values submitted while a request is in
+	 * flight replace each other and only the latest one is sent.
+	 *
+	 * @param treble value between -10 and 10
+	 * @return a future completing once this or a newer value was applied.
+	 */
+	public CompletableFuture<Void> setTrebleAsync(int treble) {
+		if (treble > 10 || treble < -10) {
+			throw new IllegalArgumentException("treble value need to be between 10 and -10");
+		}
+		return trebleLane.submit(treble);
 	}
 
 	/**
@@ -703,9 +1819,12 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public boolean isNightModeActivated() throws IOException, SonosControllerException {
+		requireService(DeviceCapabilities.HT_CONTROL_SERVICE, "Night mode");
 		String s = CommandBuilder.rendering("GetEQ").put("InstanceID", "0").put("EQType", "NightMode")
 				.executeOn(this.ip);
-		return ParserHelper.findOne("<CurrentValue>(.*)</CurrentValue>", s).equals("1") ? true : false;
+		boolean nightMode = ParserHelper.findOne("<CurrentValue>(.*)</CurrentValue>", s).equals("1");
+		mirror.nightMode = nightMode;
+		return nightMode;
 	}
 
 	/**
@@ -717,19 +1836,23 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void setNightMode(boolean state) throws IOException, SonosControllerException {
+		requireService(DeviceCapabilities.HT_CONTROL_SERVICE, "Night mode");
 		CommandBuilder.rendering("SetEQ").put("InstanceID", "0").put("EQType", "NightMode")
 				.put("DesiredValue", state ? "1" : "0").executeOn(this.ip);
+		mirror.nightMode = state;
 	}
 
 	/**
-	 * Turn On / Off the Night Mode.
+	 * Turn On / Off the Night Mode. Only a single request is sent if the night
+	 * mode is mirrored from events.
 	 * 
 	 * @throws IOException              IOException during HTTP Client operation .
 	 *                                  Sending the command.
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void switchNightMode() throws IOException, SonosControllerException {
-		this.setNightMode(!this.isNightModeActivated());
+		Boolean nightMode = mirrored(mirror.nightMode);
+		this.setNightMode(!(nightMode != null ? nightMode : this.isNightModeActivated()));
 	}
 
 	/**
@@ -742,9 +1865,12 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public boolean isDialogModeActivated() throws IOException, SonosControllerException {
+		requireService(DeviceCapabilities.HT_CONTROL_SERVICE, "Dialog mode");
 		String s = CommandBuilder.rendering("GetEQ").put("InstanceID", "0").put("EQType", "DialogLevel")
 				.executeOn(this.ip);
-		return ParserHelper.findOne("<CurrentValue>(.*)</CurrentValue>", s).equals("1") ? true : false;
+		boolean dialogMode = ParserHelper.findOne("<CurrentValue>(.*)</CurrentValue>", s).equals("1");
+		mirror.dialogMode = dialogMode;
+		return dialogMode;
 	}
 
 	/**
@@ -756,20 +1882,24 @@ public class SonosDevice {
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void setDialogMode(boolean state) throws IOException, SonosControllerException {
+		requireService(DeviceCapabilities.HT_CONTROL_SERVICE, "Dialog mode");
 		CommandBuilder.rendering("SetEQ").put("InstanceID", "0").put("EQType", "DialogLevel")
 				.put("DesiredValue", state ? "1" : "0").executeOn(this.ip);
+		mirror.dialogMode = state;
 	}
 
 	/**
-	 * Turn On / Off the Night Mode. /!\ WARNING: WORKS ONLY WITH PLAYBAR / PLAYBASE
-	 * /!\
+	 * Turn On / Off the Dialog Mode. Only a single request is sent if the dialog
+	 * mode is mirrored from events. /!\ WARNING: WORKS ONLY WITH PLAYBAR /
+	 * PLAYBASE /!\
 	 * 
 	 * @throws IOException              IOException during HTTP Client operation .
 	 *                                  Sending the command.
 	 * @throws SonosControllerException UPnP Error returned by the device
 	 */
 	public void switchDialogMode() throws IOException, SonosControllerException {
-		this.setDialogMode(!this.isDialogModeActivated());
+		Boolean dialogMode = mirrored(mirror.dialogMode);
+		this.setDialogMode(!(dialogMode != null ? dialogMode : this.isDialogModeActivated()));
 	}
 
 	// </editor-fold>
@@ -874,20 +2004,33 @@ public class SonosDevice {
 
 	public boolean getLedState() throws IOException, SonosControllerException {
 		String r = CommandBuilder.device("GetLEDState").executeOn(this.ip);
-		return ParserHelper.findOne("<CurrentLEDState>(.*)</CurrentLEDState>", r).equals("On") ? true : false;
+		boolean ledState = ParserHelper.findOne("<CurrentLEDState>(.*)</CurrentLEDState>", r).equals("On");
+		mirror.ledState = ledState;
+		return ledState;
 	}
 
 	public void setLedState(boolean state) throws IOException, SonosControllerException {
 		CommandBuilder.device("SetLEDState").put("DesiredLEDState", state ? "On" : "Off").executeOn(this.ip);
+		mirror.ledState = state;
 	}
 
+	/**
+	 * Turn the led on or off. The led state is not evented and only read once,
+	 * following switches rely on the state set by this instance and send a single
+	 * request.
+	 * 
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
 	public void switchLedState() throws IOException, SonosControllerException {
-		setLedState(!getLedState());
+		Boolean ledState = mirror.ledState;
+		setLedState(!(ledState != null ? ledState : getLedState()));
 	}
 
 	public List<TrackMetadata> getQueue(int startingIndex, int requestedCount)
 			throws IOException, SonosControllerException {
-		String r = CommandBuilder.contentDirectory("Browse").put("ObjectID", "Q:0")
+		String r = CommandBuilder.contentDirectory("Browse").priority(RequestPriority.BACKGROUND).put("ObjectID", "Q:0")
 				.put("BrowseFlag", "BrowseDirectChildren")
 				.put("Filter", "dc:title,res,dc:creator,upnp:artist,upnp:album,upnp:albumArtURI")
 				.put("StartingIndex", String.valueOf(startingIndex))
@@ -902,11 +2045,92 @@ public class SonosDevice {
 
 	public SonosZoneInfo getZoneGroupState() throws IOException, SonosControllerException {
 		String r = CommandBuilder.zoneGroupTopology("GetZoneGroupAttributes").executeOn(this.ip);
-		String name = ParserHelper.findOne("<CurrentZoneGroupName>(.*)</CurrentZoneGroupName>", r);
-		String id = ParserHelper.findOne("<CurrentZoneGroupID>(.*)</CurrentZoneGroupID>", r);
-		String devices = ParserHelper.findOne("<CurrentZonePlayerUUIDsInGroup>(.*)</CurrentZonePlayerUUIDsInGroup>", r);
-		List<String> deviceList = Arrays.asList(devices.split(","));
-		return new SonosZoneInfo(name, id, deviceList);
+		String[] values = ParserHelper.findTags(r, "CurrentZoneGroupName", "CurrentZoneGroupID",
+				"CurrentZonePlayerUUIDsInGroup");
+		List<String> deviceList = Arrays.asList(values[2].split(","));
+		return new SonosZoneInfo(values[0], values[1], deviceList);
+	}
+
+	/**
+	 * Get the playback, rendering and group state of the speaker at once, e.g.
+	 * for a now playing view. All values are requested concurrently over the
+	 * pooled connection instead of one after another. Values kept up to date by
+	 * events while subscribed are taken from the mirrored state and the group from
+	 * the topology model, leaving a single request for the current track.
+	 * <p>
+	 * Without a subscription nine reads are sent. The request gate admits three
+	 * normal priority requests per device at a time, one slot is reserved for
+	 * interactive commands, so an unsubscribed snapshot costs about three round
+	 * trips instead of one.
+	 * 
+	 * @return the state of the speaker
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public DeviceState snapshot() throws IOException, SonosControllerException {
+		StateMirror evented = getEventedState();
+		boolean mirrored = evented != null;
+		CompletableFuture<PlayState> playState = read(mirrored ? evented.playState : null, this::getPlayState);
+		CompletableFuture<TrackInfo> track = read(null, this::getCurrentTrackInfo);
+		CompletableFuture<PlayMode> playMode = read(mirrored ? evented.playMode : null, this::getPlayMode);
+		CompletableFuture<Integer> volume = read(mirrored ? evented.volume : null, this::getVolume);
+		CompletableFuture<Boolean> muted = read(mirrored ? evented.muted : null, this::isMuted);
+		CompletableFuture<Integer> bass = read(mirrored ? evented.bass : null, this::getBass);
+		CompletableFuture<Integer> treble = read(mirrored ? evented.treble : null, this::getTreble);
+		CompletableFuture<Boolean> loudness = read(mirrored ? evented.loudness : null, this::isLoudnessActivated);
+		CompletableFuture<SonosZoneInfo> zone = read(mirrored ? getTopologyZoneInfo() : null, this::getZoneGroupState);
+		try {
+			EventCondition.await(
+					CompletableFuture.allOf(playState, track, playMode, volume, muted, bass, treble, loudness, zone));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading the state of " + ip);
+		}
+		return new DeviceState(playState.join(), track.join(), playMode.join(), volume.join(), muted.join(),
+				bass.join(), treble.join(), loudness.join(), zone.join());
+	}
+
+	/**
+	 * Build the zone info from the topology model. Groups are named after their
+	 * coordinator followed by the number of other visible members, as reported by
+	 * {@link #getZoneGroupState()}.
+	 * 
+	 * @return the zone info or null if the topology model does not contain this
+	 *         device
+	 */
+	private SonosZoneInfo getTopologyZoneInfo() {
+		String uid = localUID;
+		if (!zoneTopology.isPopulated() || uid == null) {
+			return null;
+		}
+		ZoneGroup group = zoneTopology.getGroupOf(uid);
+		ZoneGroupMember coordinator = group == null ? null : group.getCoordinator();
+		if (coordinator == null) {
+			return null;
+		}
+		List<String> members = new ArrayList<>();
+		for (ZoneGroupMember member : group.getMembers()) {
+			if (!member.isInvisible()) {
+				members.add(member.getUUID());
+			}
+		}
+		String name = coordinator.getZoneName();
+		if (members.size() > 1) {
+			name += " + " + (members.size() - 1);
+		}
+		return new SonosZoneInfo(name, group.getId(), members);
+	}
+
+	/**
+	 * @return the mirrored value if known, otherwise the value requested from the
+	 *         device
+	 */
+	private static <T> CompletableFuture<T> read(T mirrored, Async.DeviceCall<T> call) {
+		if (mirrored != null) {
+			return CompletableFuture.completedFuture(mirrored);
+		}
+		return Async.supply(call, Async.POOL);
 	}
 
 	/**
@@ -920,8 +2144,155 @@ public class SonosDevice {
 	public boolean isCoordinator() throws IOException, SonosControllerException {
 		// If zone have the same UID as the speaker -> speaker is the coordinator of the
 		// zone.
-		String uid = this.getSpeakerInfo().getLocalUID();
-		return getZoneGroupState().getId().startsWith(uid);
+		return getCoordinatorUID().equals(getLocalUID());
+	}
+
+	/**
+	 * Get the uid of the coordinator of the group this speaker belongs to. While
+	 * subscribed to UPnP events the value is taken from the topology model
+	 * without a network call.
+	 *
+	 * @return the uid of the group coordinator. Equals {@link #getLocalUID()} if
+	 *         the speaker is the coordinator
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public String getCoordinatorUID() throws IOException, SonosControllerException {
+		if (uPnPSubscribed && zoneTopology.isPopulated()) {
+			ZoneGroup group = zoneTopology.getGroupOf(getLocalUID());
+			if (group != null) {
+				return group.getCoordinatorUUID();
+			}
+		}
+		// RINCON_000E58XXXXXXXX01400:35
+		String id = getZoneGroupState().getId();
+		int separator = id.indexOf(':');
+		return separator < 0 ? id : id.substring(0, separator);
+	}
+
+	/**
+	 * Resolve the device transport commands have to be sent to. Members of a group
+	 * forward to their coordinator. While subscribed the coordinator set by a
+	 * grouping command of this instance is used until the next topology event,
+	 * afterwards it is looked up in the topology model. Without the topology model
+	 * commands are sent to this device.
+	 * 
+	 * @return the ip of the group coordinator
+	 */
+	private String getTransportTarget() throws IOException, SonosControllerException {
+		if (!uPnPSubscribed || !zoneTopology.isPopulated()) {
+			return ip;
+		}
+		String pinned = coordinatorIp;
+		return pinned != null ? pinned : getCoordinatorIp();
+	}
+
+	@FunctionalInterface
+	private interface TransportCall {
+		String send(String target) throws IOException, SonosControllerException;
+	}
+
+	/**
+	 * Send a transport command to the coordinator. If the topology is unknown the
+	 * command is sent to this device and the coordinator is only resolved if this
+	 * device rejects the command as a group member.
+	 */
+	private String onTransport(TransportCall call) throws IOException, SonosControllerException {
+		String target = getTransportTarget();
+		try {
+			return call.send(target);
+		} catch (UPnPSonosControllerException e) {
+			if (!target.equals(ip)) {
+				throw e;
+			}
+			String coordinator = getCoordinatorIp();
+			if (coordinator.equals(ip)) {
+				throw e;
+			}
+			// A rejected command was not applied and can be sent again
+			return call.send(coordinator);
+		}
+	}
+
+	/**
+	 * Remember the coordinator transport commands are sent to
+	 * 
+	 * @param coordinatorIp the ip of the coordinator or null to resolve it again
+	 */
+	private void pinCoordinator(String coordinatorIp) {
+		this.coordinatorIp = coordinatorIp;
+	}
+
+	/**
+	 * Remember the coordinator after joining its group. The ip is taken from the
+	 * topology model, if the coordinator is unknown it is resolved again.
+	 */
+	private void pinCoordinatorUID(String coordinatorUID) {
+		ZoneGroupMember member = zoneTopology.getMember(coordinatorUID);
+		pinCoordinator(member == null || member.getIpAddress().isEmpty() ? null : member.getIpAddress());
+	}
+
+	/**
+	 * Resolve the ip of the coordinator of the group this speaker belongs to
+	 */
+	private String getCoordinatorIp() throws IOException, SonosControllerException {
+		String coordinator = getCoordinatorUID();
+		if (coordinator.equals(getLocalUID())) {
+			return ip;
+		}
+		ZoneGroupMember member = zoneTopology.getMember(coordinator);
+		if (member == null && !uPnPSubscribed) {
+			refreshZoneTopology();
+			member = zoneTopology.getMember(coordinator);
+		}
+		if (member == null) {
+			throw new SonosControllerException(
+					"Coordinator " + coordinator + " of " + ip + " is not part of the zone group topology");
+		}
+		return member.getIpAddress();
+	}
+
+	/**
+	 * Populate the topology model via a request. Only used while not subscribed,
+	 * otherwise the model is kept up to date by events.
+	 */
+	void refreshZoneTopology() throws IOException, SonosControllerException {
+		String r = CommandBuilder.zoneGroupTopology("GetZoneGroupState").executeOn(this.ip);
+		String zoneGroups = ParserHelper.findOne("(?s)(<ZoneGroups>.*</ZoneGroups>)", r);
+		try {
+			Element zoneGroupState = new SAXBuilder()
+					.build(new StringReader("<ZoneGroupState>" + zoneGroups + "</ZoneGroupState>")).getRootElement();
+			zoneTopology.update(zoneGroupState);
+		} catch (JDOMException e) {
+			throw new SonosControllerException("Malformed zone group state received from " + ip);
+		}
+	}
+
+	/**
+	 * Get the unique identifier of the zone player (e.g. RINCON_000E58XXXXXXXX01400).
+	 * The uid never changes and is cached after the first call. It is resolved
+	 * without a network call from the SSDP advertisement or the topology model if
+	 * possible.
+	 * 
+	 * @return the uid of the speaker
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public String getLocalUID() throws IOException, SonosControllerException {
+		if (localUID == null) {
+			// uuid:RINCON_000E58XXXXXXXX01400::urn:schemas-upnp-org:device:ZonePlayer:1
+			String usn = uPnPDevice.getUniqueServiceName();
+			if (usn != null && usn.startsWith("uuid:")) {
+				int end = usn.indexOf("::");
+				localUID = end < 0 ? usn.substring(5) : usn.substring(5, end);
+			} else {
+				ZoneGroupMember self = zoneTopology.getMemberByIp(ip);
+				localUID = self != null ? self.getUUID() : getSpeakerInfo().getLocalUID();
+			}
+		}
+		return localUID;
 	}
 
 	//@formatter:off
@@ -1022,7 +2393,7 @@ public class SonosDevice {
 	public boolean unregisterSonosEventListener(SonosEventListener eventHandler) {
 		if (sonosEventHandlers.contains(eventHandler)) {
 			sonosEventHandlers.remove(eventHandler);
-			if (sonosEventHandlers.size() == 0 && uPnPSubscribed) {
+			if (!hasExternalListeners() && uPnPSubscribed) {
 				unsubscribeUPnPEvents();
 			}
 			return true;
@@ -1047,33 +2418,60 @@ public class SonosDevice {
 	}
 
 	private void subscribeToUPnPEvents() {
-		// Subscribe to all events
-		try {
-			eventSubscriptions
-					.add(uPnPDevice.subscribe(new RenderingControlListener(MEDIA_RENDERER_CONTROL_EVENT_ENDPOINT, this),
-							MEDIA_RENDERER_CONTROL_EVENT_ENDPOINT));
-			eventSubscriptions
-					.add(uPnPDevice.subscribe(new AVTTransportListener(MEDIA_RENDERER_AVTRANSPORT_EVENT_ENDPOINT, this),
-							MEDIA_RENDERER_AVTRANSPORT_EVENT_ENDPOINT));
-			eventSubscriptions
-					.add(uPnPDevice.subscribe(new MediaRendererQueueListener(MEDIA_RENDERER_QUEUE_EVENT_ENDPOINT, this),
-							MEDIA_RENDERER_QUEUE_EVENT_ENDPOINT));
-			eventSubscriptions
-					.add(uPnPDevice.subscribe(new ZoneTopologyListener(ZONE_GROUP_TOPOLOGY_EVENT_ENDPOINT, this),
-							ZONE_GROUP_TOPOLOGY_EVENT_ENDPOINT));
-			// uPnPDevice.subscribe(new UPnPEventAdapterVerbose(ALARM_CLOCK_EVENT_ENDPONT),
-			// ALARM_CLOCK_EVENT_ENDPONT);
-			// uPnPDevice.subscribe(new
-			// UPnPEventAdapterVerbose(MEDIA_RENDERER_GROUP_CONTROL_EVENT_ENDPOINT),MEDIA_RENDERER_GROUP_CONTROL_EVENT_ENDPOINT);
-
-			uPnPSubscribed = true;
-		} catch (IOException io) {
-			io.printStackTrace();
+		synchronized (subscriptionLock) {
+			if (uPnPSubscribed || (subscriptionFailedAt != 0
+					&& System.nanoTime() - subscriptionFailedAt < TimeUnit.MILLISECONDS.toNanos(SUBSCRIPTION_RETRY))) {
+				return;
+			}
+			// Subscribe to all events
+			try {
+				// Registered before subscribing so no event is missed
+				if (!sonosEventHandlers.contains(mirror)) {
+					sonosEventHandlers.add(mirror);
+				}
+				eventSubscriptions.add(
+						uPnPDevice.subscribe(new RenderingControlListener(MEDIA_RENDERER_CONTROL_EVENT_ENDPOINT, this),
+								MEDIA_RENDERER_CONTROL_EVENT_ENDPOINT));
+				eventSubscriptions.add(
+						uPnPDevice.subscribe(new AVTTransportListener(MEDIA_RENDERER_AVTRANSPORT_EVENT_ENDPOINT, this),
+								MEDIA_RENDERER_AVTRANSPORT_EVENT_ENDPOINT));
+				eventSubscriptions.add(
+						uPnPDevice.subscribe(new MediaRendererQueueListener(MEDIA_RENDERER_QUEUE_EVENT_ENDPOINT, this),
+								MEDIA_RENDERER_QUEUE_EVENT_ENDPOINT));
+				eventSubscriptions.add(
+						uPnPDevice.subscribe(new ZoneTopologyListener(ZONE_GROUP_TOPOLOGY_EVENT_ENDPOINT, this),
+								ZONE_GROUP_TOPOLOGY_EVENT_ENDPOINT));
+				// uPnPDevice.subscribe(new UPnPEventAdapterVerbose(ALARM_CLOCK_EVENT_ENDPONT),
+				// ALARM_CLOCK_EVENT_ENDPONT);
+				eventSubscriptions.add(uPnPDevice.subscribe(
+						new GroupRenderingControlListener(MEDIA_RENDERER_GROUP_CONTROL_EVENT_ENDPOINT, this),
+						MEDIA_RENDERER_GROUP_CONTROL_EVENT_ENDPOINT));
+
+				uPnPSubscribed = true;
+				subscriptionFailedAt = 0;
+			} catch (IOException io) {
+				LOGGER.warning(MessageFormat.format("Could not subscribe to the events of {0}: {1}", ip, io));
+				// Do not keep the services subscribed before the failure
+				cancelSubscriptions();
+				sonosEventHandlers.remove(mirror);
+				subscriptionFailedAt = System.nanoTime();
+			}
 		}
-
 	}
 
 	private void unsubscribeUPnPEvents() {
+		synchronized (subscriptionLock) {
+			cancelSubscriptions();
+			uPnPSubscribed = false;
+			sonosEventHandlers.remove(mirror);
+			mirror.clearEvented();
+		}
+	}
+
+	/**
+	 * Cancel all event subscriptions. Guarded by the subscription lock
+	 */
+	private void cancelSubscriptions() {
 		ListIterator<String> eventKeys = eventSubscriptions.listIterator();
 
 		while (eventKeys.hasNext()) {
@@ -1084,13 +2482,115 @@ public class SonosDevice {
 				LOGGER.warning("Could not unsubscreibe from " + sid);
 			}
 		}
-		uPnPSubscribed = false;
+	}
+
+	/**
+	 * @return true if listeners besides the internal state mirror are registered
+	 */
+	private boolean hasExternalListeners() {
+		for (SonosEventListener listener : sonosEventHandlers) {
+			if (listener != mirror) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the mirrored rendering state if it is kept up to date by events,
+	 *         otherwise null
+	 */
+	StateMirror getEventedState() {
+		return mirrored(mirror);
+	}
+
+	/**
+	 * @param value the mirrored value
+	 * @return the value if it is kept up to date by events, otherwise null
+	 */
+	private <T> T mirrored(T value) {
+		return uPnPSubscribed ? value : null;
 	}
 
 	public List<SonosEventListener> getEventListener() {
 		return sonosEventHandlers;
 	}
 
+	/**
+	 * Get the zone group topology of the household. The model is only populated
+	 * after at least one event listener was registered and the initial topology
+	 * event was received.
+	 * 
+	 * @return the topology model backing this device
+	 */
+	public ZoneTopology getZoneTopology() {
+		return zoneTopology;
+	}
+
+	/**
+	 * Open a pooled keep-alive connection to the device and exercise the request
+	 * and response parsing paths, so the first user triggered command does not pay
+	 * for connection setup and class loading. The current track info is requested
+	 * twice, once on a fresh and once on the pooled connection.
+	 * 
+	 * @return the latency of the cold and the warm request
+	 * @throws IOException              IOException during HTTP Client operation .
+	 *                                  Sending the command.
+	 * @throws SonosControllerException UPnP Error returned by the device
+	 */
+	public DeviceReadiness warmUp() throws IOException, SonosControllerException {
+		long start = System.nanoTime();
+		getCurrentTrackInfo();
+		long cold = System.nanoTime() - start;
+		start = System.nanoTime();
+		getCurrentTrackInfo();
+		long warm = System.nanoTime() - start;
+		return new DeviceReadiness(this, TimeUnit.NANOSECONDS.toMillis(cold), TimeUnit.NANOSECONDS.toMillis(warm));
+	}
+
+	/**
+	 * Register an interceptor invoked around every SOAP command sent to any
+	 * device. Interceptors run in registration order.
+	 * 
+	 * @param interceptor the interceptor to add
+	 */
+	public static void addCommandInterceptor(CommandInterceptor interceptor) {
+		CommandBuilder.addInterceptor(interceptor);
+	}
+
+	/**
+	 * @param interceptor the interceptor to remove
+	 * @return true if the interceptor was registered
+	 */
+	public static boolean removeCommandInterceptor(CommandInterceptor interceptor) {
+		return CommandBuilder.removeInterceptor(interceptor);
+	}
+
+	/**
+	 * Get the health of the connection to this device: observed latency, the
+	 * derived request timeout, retries of read requests and the state of the
+	 * circuit breaker. Once the device failed to respond to multiple consecutive
+	 * requests further requests fail fast with a
+	 * {@link com.github.kilianB.exception.CircuitOpenException} for a cooling-off
+	 * period.
+	 * 
+	 * @return the current transport metrics
+	 */
+	public TransportMetrics getTransportMetrics() {
+		return CommandBuilder.getMetrics(ip);
+	}
+
+	/**
+	 * Get the time it took events to confirm the writes sent via the confirmed
+	 * write methods e.g. {@link #setVolumeConfirmed(int, long, TimeUnit)}. Use the
+	 * latencies to choose timeouts instead of reading the value after every write.
+	 * 
+	 * @return the confirmation latencies by action name
+	 */
+	public Map<String, ConfirmationLatency> getConfirmationLatencies() {
+		return confirmations.getLatencies();
+	}
+
 	public String resolveAlbumURL(String baseURL) {
 		return "http://" + ip + ":1400" + baseURL;
 	}
@@ -0,0 +1,135 @@
+package com.github.kilianB.sonos;
+
+import com.github.kilianB.sonos.listener.SonosEventAdapter;
+import com.github.kilianB.sonos.model.PlayMode;
+import com.github.kilianB.sonos.model.PlayState;
+import com.github.kilianB.sonos.model.ZoneGroup;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
+
+/**
+ * Local copy of the rendering and transport state of a device. Evented values
+ * are kept up to date by the rendering control and avtransport subscriptions
+ * and are only valid while the device is subscribed. Values which are not
+ * evented by the device (led state) only track changes made through this
+ * instance.
+ * <p>
+ * Fields are null as long as the value is unknown.
+ *
+ * @author Kilian
+ *
+ */
+final class StateMirror extends SonosEventAdapter {
+
+	volatile Integer volume;
+	volatile Boolean muted;
+	volatile Integer bass;
+	volatile Integer treble;
+	volatile Boolean loudness;
+	volatile Boolean nightMode;
+	volatile Boolean dialogMode;
+	volatile Boolean ledState;
+	volatile Integer groupVolume;
+	volatile Boolean groupMuted;
+	volatile PlayState playState;
+	volatile PlayMode playMode;
+
+	/**
+	 * Invoked once the topology event of a group change was received
+	 */
+	private final Runnable topologyChanged;
+
+	/**
+	 * @param topologyChanged invoked if a member joined or left a group or the
+	 *                        coordinator of a group changed
+	 */
+	StateMirror(Runnable topologyChanged) {
+		this.topologyChanged = topologyChanged;
+	}
+
+	@Override
+	public void volumeChanged(int newVolume) {
+		volume = newVolume;
+	}
+
+	@Override
+	public void muteChanged(boolean muted) {
+		this.muted = muted;
+	}
+
+	@Override
+	public void bassChanged(int bass) {
+		this.bass = bass;
+	}
+
+	@Override
+	public void trebleChanged(int treble) {
+		this.treble = treble;
+	}
+
+	@Override
+	public void loudenessChanged(boolean loudness) {
+		this.loudness = loudness;
+	}
+
+	@Override
+	public void nightModeChanged(boolean nightMode) {
+		this.nightMode = nightMode;
+	}
+
+	@Override
+	public void dialogModeChanged(boolean dialogMode) {
+		this.dialogMode = dialogMode;
+	}
+
+	@Override
+	public void groupVolumeChanged(int groupVolume) {
+		this.groupVolume = groupVolume;
+	}
+
+	@Override
+	public void groupMuteChanged(boolean muted) {
+		this.groupMuted = muted;
+	}
+
+	@Override
+	public void playStateChanged(PlayState playState) {
+		this.playState = playState;
+	}
+
+	@Override
+	public void playModeChanged(PlayMode playMode) {
+		this.playMode = playMode;
+	}
+
+	@Override
+	public void groupJoined(ZoneGroupMember member, ZoneGroup group) {
+		topologyChanged.run();
+	}
+
+	@Override
+	public void groupLeft(ZoneGroupMember member, ZoneGroup group) {
+		topologyChanged.run();
+	}
+
+	@Override
+	public void coordinatorChanged(ZoneGroup group, String previousCoordinatorUID) {
+		topologyChanged.run();
+	}
+
+	/**
+	 * Forget all evented values. Called once events are no longer received
+	 */
+	void clearEvented() {
+		volume = null;
+		muted = null;
+		bass = null;
+		treble = null;
+		loudness = null;
+		nightMode = null;
+		dialogMode = null;
+		groupVolume = null;
+		groupMuted = null;
+		playState = null;
+		playMode = null;
+	}
+}
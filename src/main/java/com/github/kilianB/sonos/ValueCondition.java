@@ -0,0 +1,59 @@
+package com.github.kilianB.sonos;
+
+import java.io.IOException;
+
+import com.github.kilianB.exception.SonosControllerException;
+
+/**
+ * Awaits an evented value to become equal to an expected value. Subclasses
+ * override the event method carrying the value and pass it to
+ * {@link #offer(Object)}.
+ *
+ * <pre>
+ * new ValueCondition&lt;&gt;(30, device::getVolume) {
+ * 	&#64;Override
+ * 	public void volumeChanged(int newVolume) {
+ * 		offer(newVolume);
+ * 	}
+ * };
+ * </pre>
+ *
+ * @author Kilian
+ *
+ */
+abstract class ValueCondition<T> extends EventCondition<T> {
+
+	private final T expected;
+	private final Async.DeviceCall<T> read;
+
+	/**
+	 * @param expected the value to await
+	 * @param read     reads the current value if the device can not be subscribed
+	 */
+	ValueCondition(T expected, Async.DeviceCall<T> read) {
+		this.expected = expected;
+		this.read = read;
+	}
+
+	/**
+	 * @param value the value reported by an event
+	 */
+	protected void offer(T value) {
+		if (expected.equals(value)) {
+			complete(value);
+		}
+	}
+
+	/**
+	 * @return the awaited value
+	 */
+	T getExpected() {
+		return expected;
+	}
+
+	@Override
+	protected T poll() throws IOException, SonosControllerException {
+		T current = read.call();
+		return expected.equals(current) ? current : null;
+	}
+}
@@ -0,0 +1,192 @@
+package com.github.kilianB.sonos;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+import com.github.kilianB.exception.CommandCancelledException;
+
+/**
+ * Client side volume fades following a custom curve. All fades share a single
+ * scheduler which limits the number of volume requests sent per tick across
+ * all fading devices, so fading an entire household does not flood the
+ * network. Volume steps are sent via the volume lane of the device, a step
+ * still in flight is replaced by the next one instead of queueing up.
+ *
+ * @author Kilian
+ *
+ */
+final class VolumeFader {
+
+	/**
+	 * Interval of the shared scheduler in milliseconds
+	 */
+	static final long TICK_INTERVAL = 50;
+
+	/**
+	 * Volume requests sent per tick across all fades
+	 */
+	static final int STEPS_PER_TICK = 2;
+
+	/**
+	 * Minimum time in milliseconds between two steps sent to the same device
+	 */
+	static final long MIN_STEP_INTERVAL = 200;
+
+	private static final VolumeFader SHARED = new VolumeFader();
+
+	private static class Fade {
+		private final SonosDevice device;
+		private final int to;
+		private final long duration;
+		private final DoubleUnaryOperator curve;
+		private final CompletableFuture<Void> future;
+		private int from;
+		private long start;
+		private int lastSent;
+		private long lastSentAt;
+
+		Fade(SonosDevice device, int to, long duration, DoubleUnaryOperator curve, CompletableFuture<Void> future) {
+			this.device = device;
+			this.to = to;
+			this.duration = duration;
+			this.curve = curve;
+			this.future = future;
+		}
+
+		/**
+		 * @return the volume the fade should be at
+		 * @throws IllegalStateException if the curve does not return a finite value
+		 */
+		int volumeAt(long now) {
+			double progress = duration <= 0 ? 1 : Math.min(1, (double) (now - start) / duration);
+			double value = curve.applyAsDouble(progress);
+			if (!Double.isFinite(value)) {
+				throw new IllegalStateException("Fade curve returned " + value + " for " + progress);
+			}
+			double shape = Math.max(0, Math.min(1, value));
+			return (int) Math.round(from + (to - from) * shape);
+		}
+
+		boolean isFinished(long now) {
+			return now - start >= duration;
+		}
+	}
+
+	/** Guarded by this. Round robin order of the active fades */
+	private final ArrayDeque<Fade> fades = new ArrayDeque<>();
+	private final HashMap<SonosDevice, Fade> byDevice = new HashMap<>();
+	private ScheduledFuture<?> ticker;
+
+	static VolumeFader shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Fade the volume of the device. A fade already running on the device is
+	 * replaced and its future completes exceptionally with a
+	 * {@link CommandCancelledException}.
+	 *
+	 * @param device   the device to fade
+	 * @param from     the volume to start from or null to read the current volume
+	 * @param to       the target volume
+	 * @param duration the duration of the fade in milliseconds
+	 * @param curve    maps the elapsed fraction of the duration [0,1] to the
+	 *                 fraction of the volume change [0,1]
+	 * @return a future completing once the target volume was applied. Cancelling
+	 *         the future stops the fade at the current volume
+	 */
+	CompletableFuture<Void> fade(SonosDevice device, Integer from, int to, long duration,
+			DoubleUnaryOperator curve) {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		Fade fade = new Fade(device, to, duration, curve, future);
+		if (from != null) {
+			start(fade, from);
+		} else {
+			Async.supply(device::getVolume, Async.POOL).whenComplete((volume, exception) -> {
+				if (exception != null) {
+					future.completeExceptionally(exception);
+				} else {
+					start(fade, volume);
+				}
+			});
+		}
+		return future;
+	}
+
+	private void start(Fade fade, int from) {
+		Fade replaced;
+		synchronized (this) {
+			if (fade.future.isDone()) {
+				return;
+			}
+			fade.from = from;
+			fade.lastSent = from;
+			fade.start = System.nanoTime() / 1_000_000;
+			replaced = byDevice.put(fade.device, fade);
+			if (replaced != null) {
+				fades.remove(replaced);
+			}
+			fades.add(fade);
+			if (ticker == null) {
+				ticker = EventCondition.SCHEDULER.scheduleAtFixedRate(this::tick, 0, TICK_INTERVAL,
+						TimeUnit.MILLISECONDS);
+			}
+		}
+		if (replaced != null) {
+			replaced.future.completeExceptionally(new CommandCancelledException("Fade was replaced"));
+		}
+	}
+
+	private synchronized void tick() {
+		long now = System.nanoTime() / 1_000_000;
+		int budget = STEPS_PER_TICK;
+		int count = fades.size();
+		for (int i = 0; i < count && budget > 0; i++) {
+			Fade fade = fades.poll();
+			if (fade.future.isDone()) {
+				byDevice.remove(fade.device, fade);
+				continue;
+			}
+			if (fade.isFinished(now)) {
+				byDevice.remove(fade.device, fade);
+				budget--;
+				fade.device.setVolumeAsync(fade.to).whenComplete((v, exception) -> {
+					if (exception != null) {
+						fade.future.completeExceptionally(exception);
+					} else {
+						fade.future.complete(null);
+					}
+				});
+				continue;
+			}
+			int volume;
+			try {
+				volume = fade.volumeAt(now);
+			} catch (RuntimeException e) {
+				// The curve is user code. Only fail this fade and keep the ticker alive
+				byDevice.remove(fade.device, fade);
+				fade.future.completeExceptionally(e);
+				continue;
+			}
+			if (volume != fade.lastSent && now - fade.lastSentAt >= MIN_STEP_INTERVAL) {
+				budget--;
+				fade.lastSent = volume;
+				fade.lastSentAt = now;
+				fade.device.setVolumeAsync(volume).whenComplete((v, exception) -> {
+					if (exception != null) {
+						fade.future.completeExceptionally(exception);
+					}
+				});
+			}
+			fades.add(fade);
+		}
+		if (fades.isEmpty()) {
+			ticker.cancel(false);
+			ticker = null;
+		}
+	}
+}
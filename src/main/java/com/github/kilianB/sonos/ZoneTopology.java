@@ -0,0 +1,257 @@
+package com.github.kilianB.sonos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jdom2.Attribute;
+import org.jdom2.Element;
+
+import com.github.kilianB.sonos.model.TopologyChange;
+import com.github.kilianB.sonos.model.TopologyChange.Type;
+import com.github.kilianB.sonos.model.ZoneGroup;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
+
+/**
+ * Incrementally maintained model of the zone group topology of a household.
+ * <p>
+ * Each ZoneGroupState update is fingerprinted per group. Only groups whose
+ * fingerprint changed are parsed and diffed, keeping the cost of an event
+ * proportional to the number of changed groups instead of the household size.
+ * No network calls are issued while applying an update.
+ *
+ * @author Kilian
+ *
+ */
+public class ZoneTopology {
+
+	/**
+	 * Group id -> group
+	 */
+	private final Map<String, ZoneGroup> groups = new HashMap<>();
+
+	/**
+	 * Group id -> fingerprint of the xml element the group was parsed from
+	 */
+	private final Map<String, Long> groupFingerprints = new HashMap<>();
+
+	/**
+	 * Member uuid -> group id the member currently belongs to
+	 */
+	private final Map<String, String> memberGroup = new HashMap<>();
+
+	/**
+	 * Member uuid -> member
+	 */
+	private final Map<String, ZoneGroupMember> members = new HashMap<>();
+
+	/**
+	 * Apply a new zone group state to the model.
+	 *
+	 * @param zoneGroupState the ZoneGroupState element of a topology event
+	 * @return the deltas between the previous and the new state. The first update
+	 *         reports every member as online.
+	 */
+	public synchronized List<TopologyChange> update(Element zoneGroupState) {
+
+		List<TopologyChange> changes = new ArrayList<>();
+
+		Element zoneGroupsElement = zoneGroupState.getChild("ZoneGroups");
+		List<Element> zoneGroups = zoneGroupsElement == null ? Collections.emptyList()
+				: zoneGroupsElement.getChildren("ZoneGroup");
+
+		Set<String> seenGroups = new HashSet<>();
+		List<ZoneGroup> changedGroups = new ArrayList<>();
+
+		for (Element zoneGroup : zoneGroups) {
+			String id = zoneGroup.getAttributeValue("ID");
+			long fingerprint = fingerprint(zoneGroup);
+			seenGroups.add(id);
+			Long previous = groupFingerprints.get(id);
+			if (previous == null || previous != fingerprint) {
+				groupFingerprints.put(id, fingerprint);
+				changedGroups.add(parseGroup(zoneGroup));
+			}
+		}
+
+		// Members which might have gone offline
+		Set<String> candidatesOffline = new HashSet<>();
+		List<ZoneGroup> removedGroups = new ArrayList<>();
+
+		for (String id : new ArrayList<>(groups.keySet())) {
+			if (!seenGroups.contains(id)) {
+				ZoneGroup removed = groups.remove(id);
+				groupFingerprints.remove(id);
+				removedGroups.add(removed);
+				addUUIDs(candidatesOffline, removed);
+			}
+		}
+
+		Map<String, ZoneGroup> previousVersion = new HashMap<>();
+		for (ZoneGroup group : changedGroups) {
+			ZoneGroup old = groups.put(group.getId(), group);
+			if (old != null) {
+				previousVersion.put(group.getId(), old);
+				addUUIDs(candidatesOffline, old);
+			}
+		}
+
+		for (ZoneGroup group : changedGroups) {
+			ZoneGroup old = previousVersion.get(group.getId());
+			if (old == null) {
+				old = findHandoff(group, removedGroups);
+			}
+			String continuedId = old == null ? group.getId() : old.getId();
+
+			for (ZoneGroupMember member : group.getMembers()) {
+				String uuid = member.getUUID();
+				candidatesOffline.remove(uuid);
+				members.put(uuid, member);
+				String previousGroupId = memberGroup.put(uuid, group.getId());
+
+				if (previousGroupId == null) {
+					changes.add(new TopologyChange(Type.MEMBER_ONLINE, member, group, null));
+					changes.add(new TopologyChange(Type.GROUP_JOINED, member, group, null));
+				} else if (!previousGroupId.equals(group.getId()) && !previousGroupId.equals(continuedId)) {
+					ZoneGroup previousGroup = findPrevious(previousGroupId, previousVersion, removedGroups);
+					changes.add(new TopologyChange(Type.GROUP_LEFT, member, previousGroup, null));
+					changes.add(new TopologyChange(Type.GROUP_JOINED, member, group, previousGroup));
+				}
+			}
+
+			if (old != null && !old.getCoordinatorUUID().equals(group.getCoordinatorUUID())) {
+				changes.add(new TopologyChange(Type.COORDINATOR_CHANGED, group.getCoordinator(), group, old));
+			}
+		}
+
+		for (String uuid : candidatesOffline) {
+			ZoneGroupMember member = members.remove(uuid);
+			String previousGroupId = memberGroup.remove(uuid);
+			ZoneGroup previousGroup = findPrevious(previousGroupId, previousVersion, removedGroups);
+			changes.add(new TopologyChange(Type.GROUP_LEFT, member, previousGroup, null));
+			changes.add(new TopologyChange(Type.MEMBER_OFFLINE, member, previousGroup, null));
+		}
+		return changes;
+	}
+
+	/**
+	 * @param uuid the uuid of a zone player
+	 * @return the group the zone player currently belongs to or null if unknown
+	 */
+	public synchronized ZoneGroup getGroupOf(String uuid) {
+		String groupId = memberGroup.get(uuid);
+		return groupId == null ? null : groups.get(groupId);
+	}
+
+	/**
+	 * @param ipAddress the ip address of a zone player
+	 * @return the member with the given ip address or null if unknown
+	 */
+	public synchronized ZoneGroupMember getMemberByIp(String ipAddress) {
+		for (ZoneGroupMember member : members.values()) {
+			if (member.getIpAddress().equals(ipAddress)) {
+				return member;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param uuid the uuid of a zone player
+	 * @return the member or null if unknown
+	 */
+	public synchronized ZoneGroupMember getMember(String uuid) {
+		return members.get(uuid);
+	}
+
+	/**
+	 * @return a snapshot of all groups currently present
+	 */
+	public synchronized Collection<ZoneGroup> getGroups() {
+		return new ArrayList<>(groups.values());
+	}
+
+	/**
+	 * @return a snapshot of all members currently present
+	 */
+	public synchronized Collection<ZoneGroupMember> getMembers() {
+		return new ArrayList<>(members.values());
+	}
+
+	/**
+	 * @return true if at least one zone group state was applied
+	 */
+	public synchronized boolean isPopulated() {
+		return !groupFingerprints.isEmpty();
+	}
+
+	private static ZoneGroup findPrevious(String groupId, Map<String, ZoneGroup> previousVersion,
+			List<ZoneGroup> removedGroups) {
+		ZoneGroup group = previousVersion.get(groupId);
+		if (group != null) {
+			return group;
+		}
+		for (ZoneGroup removed : removedGroups) {
+			if (removed.getId().equals(groupId)) {
+				return removed;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A coordinator handoff usually assigns a new group id. Treat a new group
+	 * consisting of exactly the members of a removed group as the same group.
+	 */
+	private static ZoneGroup findHandoff(ZoneGroup group, List<ZoneGroup> removedGroups) {
+		for (ZoneGroup removed : removedGroups) {
+			if (removed.getMembers().size() == group.getMembers().size()
+					&& removed.getMembers().containsAll(group.getMembers())) {
+				return removed;
+			}
+		}
+		return null;
+	}
+
+	private static void addUUIDs(Set<String> target, ZoneGroup group) {
+		for (ZoneGroupMember member : group.getMembers()) {
+			target.add(member.getUUID());
+		}
+	}
+
+	private static ZoneGroup parseGroup(Element zoneGroup) {
+		List<ZoneGroupMember> groupMembers = new ArrayList<>();
+		for (Element member : zoneGroup.getChildren("ZoneGroupMember")) {
+			groupMembers.add(new ZoneGroupMember(member.getAttributeValue("UUID"), member.getAttributeValue("ZoneName"),
+					member.getAttributeValue("Location"), "1".equals(member.getAttributeValue("Invisible"))));
+		}
+		return new ZoneGroup(zoneGroup.getAttributeValue("ID"), zoneGroup.getAttributeValue("Coordinator"),
+				groupMembers);
+	}
+
+	/**
+	 * Hash the attributes of the group and it's members without creating
+	 * intermediate objects.
+	 */
+	private static long fingerprint(Element zoneGroup) {
+		long hash = 17;
+		hash = hashAttributes(hash, zoneGroup);
+		for (Element member : zoneGroup.getChildren("ZoneGroupMember")) {
+			hash = hashAttributes(hash * 31, member);
+		}
+		return hash;
+	}
+
+	private static long hashAttributes(long hash, Element element) {
+		for (Attribute attribute : element.getAttributes()) {
+			hash = hash * 31 + attribute.getName().hashCode();
+			hash = hash * 31 + attribute.getValue().hashCode();
+		}
+		return hash;
+	}
+}
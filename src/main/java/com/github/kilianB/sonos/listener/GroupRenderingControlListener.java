@@ -0,0 +1,50 @@
+package com.github.kilianB.sonos.listener;
+
+import java.util.List;
+
+import org.jdom2.Element;
+
+import com.github.kilianB.sonos.SonosDevice;
+import com.github.kilianB.uPnPClient.UPnPEvent;
+import com.github.kilianB.uPnPClient.UPnPEventAdapter;
+
+/**
+ * Event listener used to parse UPnPEvents received from the group rendering
+ * control service relating to the volume and mute state of the entire group.
+ * Only the group coordinator reports meaningful values.
+ * @author Kilian
+ *
+ */
+public class GroupRenderingControlListener extends UPnPEventAdapter {
+
+	/**
+	 * Event listeners to be notified in case of noteworthy events
+	 */
+	private final List<SonosEventListener> listeners;
+
+	public GroupRenderingControlListener(String servicePath, SonosDevice device) {
+		listeners = device.getEventListener();
+	}
+
+	@Override
+	public void eventReceived(UPnPEvent event) {
+		// Group rendering events are not wrapped in a LastChange element
+		for (Element property : event.getProperties()) {
+			switch (property.getName()) {
+			case "GroupVolume":
+				int volume = Integer.parseInt(property.getTextTrim());
+				for (SonosEventListener listener : listeners) {
+					listener.groupVolumeChanged(volume);
+				}
+				break;
+
+			case "GroupMute":
+				boolean muted = Integer.parseInt(property.getTextTrim()) != 0;
+				for (SonosEventListener listener : listeners) {
+					listener.groupMuteChanged(muted);
+				}
+				break;
+			}
+		}
+	}
+}
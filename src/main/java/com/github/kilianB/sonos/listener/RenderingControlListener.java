@@ -72,6 +72,29 @@ public class RenderingControlListener extends UPnPEventAdapter{
 							listener.loudenessChanged(loudness);
 						}
 						break;
+
+					case "Mute":
+						if(ele.getAttributeValue("channel").equals("Master")){
+							boolean muted = Integer.parseInt(ele.getAttributeValue("val"))!= 0;
+							for(SonosEventListener listener : listeners) {
+								listener.muteChanged(muted);
+							}
+						}
+						break;
+
+					case "NightMode":
+						boolean nightMode = Integer.parseInt(ele.getAttributeValue("val"))!= 0;
+						for(SonosEventListener listener : listeners) {
+							listener.nightModeChanged(nightMode);
+						}
+						break;
+
+					case "DialogLevel":
+						boolean dialogMode = Integer.parseInt(ele.getAttributeValue("val"))!= 0;
+						for(SonosEventListener listener : listeners) {
+							listener.dialogModeChanged(dialogMode);
+						}
+						break;
 				}
 			}
 		}
@@ -8,6 +8,8 @@ import com.github.kilianB.sonos.model.PlayMode;
 import com.github.kilianB.sonos.model.PlayState;
 import com.github.kilianB.sonos.model.QueueEvent;
 import com.github.kilianB.sonos.model.TrackInfo;
+import com.github.kilianB.sonos.model.ZoneGroup;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
 
 /**
  * Event listener used to listen to specific UPnP Events emitted by sonos speakers
@@ -68,6 +70,45 @@ public interface SonosEventListener {
 	 */
 	public void loudenessChanged(boolean loudness);
 
+	/**
+	 * Fired once the mute state of the speaker changes
+	 * @param muted true if the speaker is muted
+	 */
+	public default void muteChanged(boolean muted) {
+	}
+
+	/**
+	 * Fired once the night mode of the speaker changes. Only emitted by home
+	 * theater devices
+	 * @param nightMode the new night mode
+	 */
+	public default void nightModeChanged(boolean nightMode) {
+	}
+
+	/**
+	 * Fired once the dialog mode of the speaker changes. Only emitted by home
+	 * theater devices
+	 * @param dialogMode the new dialog mode
+	 */
+	public default void dialogModeChanged(boolean dialogMode) {
+	}
+
+	/**
+	 * Fired once the volume of the group changes. Only emitted by the group
+	 * coordinator
+	 * @param groupVolume the new volume of the group
+	 */
+	public default void groupVolumeChanged(int groupVolume) {
+	}
+
+	/**
+	 * Fired once the mute state of the group changes. Only emitted by the group
+	 * coordinator
+	 * @param muted true if the group is muted
+	 */
+	public default void groupMuteChanged(boolean muted) {
+	}
+
 	/**
 	 * AVT Transport events are fired when playmode or playstates change and carry more 
 	 * information that the specific event handler. Using this method allows more insight 
@@ -101,4 +142,44 @@ public interface SonosEventListener {
 	 * is in a group with including itself
 	 */
 	public void groupChanged(ArrayList<String> allDevicesInZone);
+
+	/**
+	 * Event fired once a zone player appears in the zone group topology of the
+	 * household.
+	 * @param member the zone player which came online
+	 */
+	public default void memberOnline(ZoneGroupMember member) {
+	}
+
+	/**
+	 * Event fired once a zone player is no longer part of the zone group topology
+	 * of the household.
+	 * @param member the zone player which went offline
+	 */
+	public default void memberOffline(ZoneGroupMember member) {
+	}
+
+	/**
+	 * Event fired once a zone player of the household becomes a member of a group.
+	 * @param member the zone player joining the group
+	 * @param group the group after the member joined
+	 */
+	public default void groupJoined(ZoneGroupMember member, ZoneGroup group) {
+	}
+
+	/**
+	 * Event fired once a zone player of the household leaves a group.
+	 * @param member the zone player leaving the group
+	 * @param group the group as it was before the member left
+	 */
+	public default void groupLeft(ZoneGroupMember member, ZoneGroup group) {
+	}
+
+	/**
+	 * Event fired once the coordinator of a group of the household changes.
+	 * @param group the group after the change
+	 * @param previousCoordinatorUUID the uuid of the previous coordinator
+	 */
+	public default void coordinatorChanged(ZoneGroup group, String previousCoordinatorUUID) {
+	}
 }
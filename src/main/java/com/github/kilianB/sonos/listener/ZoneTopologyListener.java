@@ -1,119 +1,130 @@
 package com.github.kilianB.sonos.listener;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 
 import org.jdom2.Element;
 
 import com.github.kilianB.sonos.SonosDevice;
+import com.github.kilianB.sonos.ZoneTopology;
+import com.github.kilianB.sonos.model.TopologyChange;
+import com.github.kilianB.sonos.model.ZoneGroup;
+import com.github.kilianB.sonos.model.ZoneGroupMember;
 import com.github.kilianB.uPnPClient.UPnPEvent;
 import com.github.kilianB.uPnPClient.UPnPEventAdapter;
-import com.github.kilianB.uPnPClient.UPnPEventAdapterVerbose;
 
 /**
  * Sample event listener for the sonos topology events. Topology events
- * take care how speakers are grouped together and which devices are present on the 
+ * take care how speakers are grouped together and which devices are present on the
  * network.
- * 
- * TODO ZoneTopology really should be a singleton or only one device should be subscribed to. 
+ * <p>
+ * Events are applied to the {@link ZoneTopology} of the device which only diffs the
+ * groups that actually changed. The own zone player is identified by it's ip address
+ * therefore no network calls are issued on the event thread.
+ *
+ * TODO ZoneTopology really should be a singleton or only one device should be subscribed to.
  * This will need refactoring in the future
- * 
+ *
  * @author Kilian
  *
  */
 public class ZoneTopologyListener extends UPnPEventAdapter {
 
-
-	/**
-	 * Devices currently available in the network
-	 */
-	private HashSet<String> presentDevices = new HashSet<String>();
-	
-	/**
-	 * Internal state of the devices current grouping state
-	 */
-	private HashSet<String> groupState = new HashSet<String>();
-	
 	/**
 	 * Event listeners to be notified in case of noteworthy events
 	 */
 	private List<SonosEventListener> listeners;
 
 	private SonosDevice device;
-	
+
+	private ZoneTopology topology;
+
 	public ZoneTopologyListener(String servicePath, SonosDevice device) {
 		//super(servicePath);
 		this.device = device;
 		this.listeners = device.getEventListener();
+		this.topology = device.getZoneTopology();
 	}
 
 	@Override
 	public void initialEventReceived(UPnPEvent event) {
-		presentDevices.addAll(parseConnectedDeviceNames(event));
+		// Populate the model without notifying listeners
+		Element zoneGroupState = findZoneGroupState(event);
+		if (zoneGroupState != null) {
+			topology.update(zoneGroupState);
+		}
 	}
 
 	@Override
 	public void eventReceived(UPnPEvent event) {
 
-		HashSet<String> currentConnectedDevices = parseConnectedDeviceNames(event);
+		Element zoneGroupState = findZoneGroupState(event);
+		if (zoneGroupState == null) {
+			return;
+		}
 
-		currentConnectedDevices.stream().forEach(deviceName -> {
-			if (!presentDevices.contains(deviceName)) {
-				for (SonosEventListener listener : listeners) {
-					listener.sonosDeviceConnected(deviceName);
+		List<TopologyChange> changes = topology.update(zoneGroupState);
+
+		if (changes.isEmpty()) {
+			return;
+		}
+
+		ZoneGroupMember self = topology.getMemberByIp(device.getIpAddress());
+		boolean ownGroupChanged = false;
+
+		for (TopologyChange change : changes) {
+			ZoneGroupMember member = change.getMember();
+			ZoneGroup group = change.getGroup();
+
+			if (self != null && group != null && group.contains(self.getUUID())
+					&& change.getType() != TopologyChange.Type.COORDINATOR_CHANGED) {
+				ownGroupChanged = true;
+			}
+
+			for (SonosEventListener listener : listeners) {
+				switch (change.getType()) {
+				case MEMBER_ONLINE:
+					listener.memberOnline(member);
+					if (!member.isInvisible()) {
+						listener.sonosDeviceConnected(member.getZoneName());
+					}
+					break;
+				case MEMBER_OFFLINE:
+					listener.memberOffline(member);
+					if (!member.isInvisible()) {
+						listener.sonosDeviceDisconnected(member.getZoneName());
+					}
+					break;
+				case GROUP_JOINED:
+					listener.groupJoined(member, group);
+					break;
+				case GROUP_LEFT:
+					listener.groupLeft(member, group);
+					break;
+				case COORDINATOR_CHANGED:
+					listener.coordinatorChanged(group, change.getPreviousGroup().getCoordinatorUUID());
+					break;
 				}
 			}
-		});
+		}
 
-		if (presentDevices.removeAll(currentConnectedDevices)) {
-			presentDevices.stream().forEach(deviceName -> {
+		if (ownGroupChanged) {
+			ZoneGroup ownGroup = topology.getGroupOf(self.getUUID());
+			if (ownGroup != null) {
 				for (SonosEventListener listener : listeners) {
-					listener.sonosDeviceDisconnected(deviceName);
+					listener.groupChanged(ownGroup.getZoneNames());
 				}
-			});
+			}
 		}
-		presentDevices = currentConnectedDevices;
-		
-		//We could also emit events when devices get grouped
 	}
 
-	private HashSet<String> parseConnectedDeviceNames(UPnPEvent event) {
-		String ownName = device.getDeviceNameCached();
-		HashSet<String> devices = new HashSet<String>();
+	private static Element findZoneGroupState(UPnPEvent event) {
 		// Are we interested about the household ids?
 		for (Element property : event.getProperties()) {
-
 			if (property.getName().equals("ZoneGroupState")) {
-				List<Element> zoneGroups = property.getChild("ZoneGroups").getChildren("ZoneGroup");
-
-				
-				for (Element zoneGroup : zoneGroups) {
-					ArrayList<String> allDevicesInZone = new ArrayList<String>();
-					for (Element device : zoneGroup.getChildren("ZoneGroupMember")) {
-						String deviceName = device.getAttributeValue("ZoneName");
-						allDevicesInZone.add(deviceName);
-					}
-					if(allDevicesInZone.contains(ownName)) {
-						//Check if we have a group change event
-						if(!groupState.isEmpty()) {
-							
-							if( !groupState.containsAll(allDevicesInZone) || groupState.size() != allDevicesInZone.size()) {
-								groupState.clear();
-								for (SonosEventListener listener : listeners) {
-									listener.groupChanged(allDevicesInZone);
-								}
-							}
-						}
-						groupState.addAll(allDevicesInZone);
-						
-					}
-					devices.addAll(allDevicesInZone);
-				}
+				return property;
 			}
 		}
-		return devices;
+		return null;
 	}
 
 }
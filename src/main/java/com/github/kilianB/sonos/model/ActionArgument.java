@@ -0,0 +1,45 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * Argument of an action declared in the service description (SCPD) of a UPnP
+ * service.
+ *
+ * @author Kilian
+ */
+public class ActionArgument {
+
+	private final String name;
+	private final boolean input;
+	private final StateVariable relatedStateVariable;
+
+	public ActionArgument(String name, boolean input, StateVariable relatedStateVariable) {
+		this.name = name;
+		this.input = input;
+		this.relatedStateVariable = relatedStateVariable;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return true for input arguments, false for output arguments
+	 */
+	public boolean isInput() {
+		return input;
+	}
+
+	/**
+	 * @return the state variable defining the type of the argument. May be null
+	 *         for malformed descriptions
+	 */
+	public StateVariable getRelatedStateVariable() {
+		return relatedStateVariable;
+	}
+
+	@Override
+	public String toString() {
+		return "ActionArgument [name=" + name + ", " + (input ? "in" : "out") + "]";
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Action declared in the service description (SCPD) of a UPnP service.
+ *
+ * @author Kilian
+ */
+public class ActionDescription {
+
+	private final String name;
+	private final List<ActionArgument> inputs;
+	private final List<ActionArgument> outputs;
+
+	/**
+	 * @param name      the name of the action
+	 * @param arguments the arguments in declaration order
+	 */
+	public ActionDescription(String name, List<ActionArgument> arguments) {
+		this.name = name;
+		List<ActionArgument> in = new ArrayList<>();
+		List<ActionArgument> out = new ArrayList<>();
+		for (ActionArgument argument : arguments) {
+			(argument.isInput() ? in : out).add(argument);
+		}
+		this.inputs = Collections.unmodifiableList(in);
+		this.outputs = Collections.unmodifiableList(out);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the input arguments in the order they have to be sent
+	 */
+	public List<ActionArgument> getInputs() {
+		return inputs;
+	}
+
+	/**
+	 * @return the output arguments in declaration order
+	 */
+	public List<ActionArgument> getOutputs() {
+		return outputs;
+	}
+
+	@Override
+	public String toString() {
+		return "ActionDescription [name=" + name + ", inputs=" + inputs + ", outputs=" + outputs + "]";
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * State of the circuit breaker guarding the requests sent to a device.
+ * 
+ * @author Kilian
+ */
+public enum CircuitState {
+	/**
+	 * Requests are sent normally.
+	 */
+	CLOSED,
+
+	/**
+	 * The device kept failing. Requests fail immediately until the cooling-off
+	 * period elapsed.
+	 */
+	OPEN,
+
+	/**
+	 * The cooling-off period elapsed. A single trial request is sent to decide if
+	 * the circuit closes again.
+	 */
+	HALF_OPEN
+}
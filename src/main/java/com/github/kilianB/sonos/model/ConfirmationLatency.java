@@ -0,0 +1,89 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * Time it took the events of a device to confirm a write action.
+ *
+ * @author Kilian
+ * @see com.github.kilianB.sonos.SonosDevice#getConfirmationLatencies()
+ */
+public class ConfirmationLatency {
+
+	private final String action;
+	private final long confirmed;
+	private final long timeouts;
+	private final long unchanged;
+	private final long lastMillis;
+	private final long medianMillis;
+	private final long p99Millis;
+
+	public ConfirmationLatency(String action, long confirmed, long timeouts, long unchanged, long lastMillis,
+			long medianMillis, long p99Millis) {
+		this.action = action;
+		this.confirmed = confirmed;
+		this.timeouts = timeouts;
+		this.unchanged = unchanged;
+		this.lastMillis = lastMillis;
+		this.medianMillis = medianMillis;
+		this.p99Millis = p99Millis;
+	}
+
+	/**
+	 * @return the name of the action e.g. SetVolume
+	 */
+	public String getAction() {
+		return action;
+	}
+
+	/**
+	 * @return the number of writes confirmed in time
+	 */
+	public long getConfirmed() {
+		return confirmed;
+	}
+
+	/**
+	 * @return the number of writes no confirmation arrived for in time
+	 */
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	/**
+	 * @return the number of writes of a value the device already had. The device
+	 *         does not event unchanged values, these writes complete once the
+	 *         device accepted them and are not included in the latencies
+	 */
+	public long getUnchanged() {
+		return unchanged;
+	}
+
+	/**
+	 * @return the latency of the last confirmed write or -1 if none was confirmed
+	 */
+	public long getLastMillis() {
+		return lastMillis;
+	}
+
+	/**
+	 * @return the median of the recent latencies or -1 if none was confirmed
+	 */
+	public long getMedianMillis() {
+		return medianMillis;
+	}
+
+	/**
+	 * @return the 99th percentile of the recent latencies or -1 if none was
+	 *         confirmed
+	 */
+	public long getP99Millis() {
+		return p99Millis;
+	}
+
+	@Override
+	public String toString() {
+		return "ConfirmationLatency [action=" + action + ", confirmed=" + confirmed + ", timeouts=" + timeouts
+				+ ", unchanged=" + unchanged + ", lastMillis=" + lastMillis + ", medianMillis=" + medianMillis
+				+ ", p99Millis=" + p99Millis + "]";
+	}
+
+}
@@ -0,0 +1,222 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * Target state of a single device within a scene. Only attributes which were
+ * set are managed, all other attributes are left untouched.
+ *
+ * <pre>
+ * DesiredState livingRoom = new DesiredState().standalone().source(uri, null).playState(PlayState.PLAYING)
+ * 		.volume(25).nightMode(true);
+ * DesiredState kitchen = new DesiredState().joinTo(livingRoomUID).volume(15);
+ * </pre>
+ *
+ * @author Kilian
+ * @see com.github.kilianB.sonos.SceneReconciler SceneReconciler
+ */
+public class DesiredState {
+
+	/**
+	 * Marker for a device coordinating its own group
+	 */
+	private static final String STANDALONE = "";
+
+	private static final String MEMBER_TRANSPORT = "The source and play state of a group member are controlled by "
+			+ "its coordinator";
+
+	private String coordinatorUID;
+	private String uri;
+	private TrackMetadata metadata;
+	private PlayState playState;
+	private Integer volume;
+	private Boolean muted;
+	private Integer bass;
+	private Integer treble;
+	private Boolean loudness;
+	private Boolean nightMode;
+	private Boolean dialogMode;
+
+	/**
+	 * @param coordinatorUID the uid of the coordinator the device shall be grouped
+	 *                       with
+	 * @return this
+	 * @throws IllegalStateException if a source or play state was requested. The
+	 *                               transport of a member is controlled by its
+	 *                               coordinator
+	 */
+	public DesiredState joinTo(String coordinatorUID) {
+		if (uri != null || playState != null) {
+			throw new IllegalStateException(MEMBER_TRANSPORT);
+		}
+		this.coordinatorUID = coordinatorUID;
+		return this;
+	}
+
+	/**
+	 * The device shall coordinate its own group
+	 *
+	 * @return this
+	 */
+	public DesiredState standalone() {
+		this.coordinatorUID = STANDALONE;
+		return this;
+	}
+
+	/**
+	 * @param uri      the uri of the stream the device shall play
+	 * @param metadata the track metadata. May be null
+	 * @return this
+	 * @throws IllegalStateException if the device shall join another coordinator
+	 */
+	public DesiredState source(String uri, TrackMetadata metadata) {
+		checkTransport();
+		this.uri = uri;
+		this.metadata = metadata;
+		return this;
+	}
+
+	/**
+	 * @param playState PLAYING, PAUSED_PLAYBACK or STOPPED
+	 * @return this
+	 * @throws IllegalStateException if the device shall join another coordinator
+	 */
+	public DesiredState playState(PlayState playState) {
+		checkTransport();
+		if (playState != PlayState.PLAYING && playState != PlayState.PAUSED_PLAYBACK
+				&& playState != PlayState.STOPPED) {
+			throw new IllegalArgumentException("Only PLAYING, PAUSED_PLAYBACK and STOPPED can be requested");
+		}
+		this.playState = playState;
+		return this;
+	}
+
+	private void checkTransport() {
+		if (getCoordinatorUID() != null) {
+			throw new IllegalStateException(MEMBER_TRANSPORT);
+		}
+	}
+
+	/**
+	 * @param volume A volume value between 0 and 100
+	 * @return this
+	 */
+	public DesiredState volume(int volume) {
+		if (volume > 100 || volume < 0) {
+			throw new IllegalArgumentException("Volume value need to be between 0 and 100");
+		}
+		this.volume = volume;
+		return this;
+	}
+
+	public DesiredState muted(boolean muted) {
+		this.muted = muted;
+		return this;
+	}
+
+	/**
+	 * @param bass Value between 10 and -10
+	 * @return this
+	 */
+	public DesiredState bass(int bass) {
+		if (bass > 10 || bass < -10) {
+			throw new IllegalArgumentException("Bass value need to be between 10 and -10");
+		}
+		this.bass = bass;
+		return this;
+	}
+
+	/**
+	 * @param treble value between -10 and 10
+	 * @return this
+	 */
+	public DesiredState treble(int treble) {
+		if (treble > 10 || treble < -10) {
+			throw new IllegalArgumentException("treble value need to be between 10 and -10");
+		}
+		this.treble = treble;
+		return this;
+	}
+
+	public DesiredState loudness(boolean loudness) {
+		this.loudness = loudness;
+		return this;
+	}
+
+	public DesiredState nightMode(boolean nightMode) {
+		this.nightMode = nightMode;
+		return this;
+	}
+
+	public DesiredState dialogMode(boolean dialogMode) {
+		this.dialogMode = dialogMode;
+		return this;
+	}
+
+	/**
+	 * @return true if the group membership is managed
+	 */
+	public boolean isGroupManaged() {
+		return coordinatorUID != null;
+	}
+
+	/**
+	 * @return true if the device shall coordinate its own group
+	 */
+	public boolean isStandalone() {
+		return STANDALONE.equals(coordinatorUID);
+	}
+
+	/**
+	 * @return the uid of the coordinator to join or null if the device shall be
+	 *         standalone or the group is not managed
+	 */
+	public String getCoordinatorUID() {
+		return isStandalone() ? null : coordinatorUID;
+	}
+
+	public String getUri() {
+		return uri;
+	}
+
+	public TrackMetadata getMetadata() {
+		return metadata;
+	}
+
+	public PlayState getPlayState() {
+		return playState;
+	}
+
+	public Integer getVolume() {
+		return volume;
+	}
+
+	public Boolean getMuted() {
+		return muted;
+	}
+
+	public Integer getBass() {
+		return bass;
+	}
+
+	public Integer getTreble() {
+		return treble;
+	}
+
+	public Boolean getLoudness() {
+		return loudness;
+	}
+
+	public Boolean getNightMode() {
+		return nightMode;
+	}
+
+	public Boolean getDialogMode() {
+		return dialogMode;
+	}
+
+	@Override
+	public String toString() {
+		return "DesiredState [coordinatorUID=" + coordinatorUID + ", uri=" + uri + ", playState=" + playState
+				+ ", volume=" + volume + ", muted=" + muted + ", bass=" + bass + ", treble=" + treble + ", loudness="
+				+ loudness + ", nightMode=" + nightMode + ", dialogMode=" + dialogMode + "]";
+	}
+}
@@ -0,0 +1,133 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Services, actions and state variables offered by a device model running a
+ * specific software version. Parsed from the device description and the
+ * service descriptions (SCPD) of the device.
+ *
+ * @author Kilian
+ */
+public class DeviceCapabilities {
+
+	/**
+	 * Transport and queue service
+	 */
+	public static final String AV_TRANSPORT_SERVICE = "urn:schemas-upnp-org:service:AVTransport:1";
+
+	/**
+	 * Audio input service. Only offered by devices with a line-in port
+	 */
+	public static final String AUDIO_IN_SERVICE = "urn:schemas-upnp-org:service:AudioIn:1";
+
+	/**
+	 * Home theater control service. Only offered by devices with a tv input e.g.
+	 * playbar, playbase or beam
+	 */
+	public static final String HT_CONTROL_SERVICE = "urn:schemas-sonos-com:service:HTControl:1";
+
+	/**
+	 * Alarm and clock service
+	 */
+	public static final String ALARM_CLOCK_SERVICE = "urn:schemas-upnp-org:service:AlarmClock:1";
+
+	/**
+	 * Household wide key value storage and account information
+	 */
+	public static final String SYSTEM_PROPERTIES_SERVICE = "urn:schemas-upnp-org:service:SystemProperties:1";
+
+	/**
+	 * Volume and mute of the entire group. Only served by the group coordinator
+	 */
+	public static final String GROUP_RENDERING_CONTROL_SERVICE = "urn:schemas-upnp-org:service:GroupRenderingControl:1";
+
+	private final String modelNumber;
+	private final String modelName;
+	private final String softwareVersion;
+	private final List<ServiceDescription> services;
+
+	public DeviceCapabilities(String modelNumber, String modelName, String softwareVersion,
+			List<ServiceDescription> services) {
+		this.modelNumber = modelNumber;
+		this.modelName = modelName;
+		this.softwareVersion = softwareVersion;
+		this.services = Collections.unmodifiableList(services);
+	}
+
+	/**
+	 * @return the model number e.g. S12
+	 */
+	public String getModelNumber() {
+		return modelNumber;
+	}
+
+	/**
+	 * @return the model name e.g. Sonos Playbar
+	 */
+	public String getModelName() {
+		return modelName;
+	}
+
+	public String getSoftwareVersion() {
+		return softwareVersion;
+	}
+
+	public List<ServiceDescription> getServices() {
+		return services;
+	}
+
+	/**
+	 * @param service the service type or service id
+	 * @return the service or null if the device does not offer it. If multiple
+	 *         embedded devices offer the service the first one is returned
+	 */
+	public ServiceDescription getService(String service) {
+		for (ServiceDescription description : services) {
+			if (description.getServiceType().equals(service) || description.getServiceId().equals(service)) {
+				return description;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param controlURL the path actions are posted to e.g.
+	 *                   /MediaRenderer/AVTransport/Control
+	 * @return the service or null if the device does not offer it
+	 */
+	public ServiceDescription getServiceByControlURL(String controlURL) {
+		for (ServiceDescription description : services) {
+			if (description.getControlURL().equals(controlURL)) {
+				return description;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param service the service type or service id
+	 * @return true if the device offers the service
+	 */
+	public boolean hasService(String service) {
+		return getService(service) != null;
+	}
+
+	/**
+	 * @param service the service type or service id
+	 * @param action  the name of the action
+	 * @return true if the device offers the action
+	 */
+	public boolean supportsAction(String service, String action) {
+		ServiceDescription description = getService(service);
+		return description != null && description.getAction(action) != null;
+	}
+
+	@Override
+	public String toString() {
+		return "DeviceCapabilities [modelNumber=" + modelNumber + ", modelName=" + modelName + ", softwareVersion="
+				+ softwareVersion + ", services=" + services + "]";
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.github.kilianB.sonos.model;
+
+import com.github.kilianB.sonos.SonosDevice;
+
+/**
+ * Outcome of warming up the connection to a device.
+ *
+ * @author Kilian
+ * @see SonosDevice#warmUp()
+ */
+public class DeviceReadiness {
+
+	private final SonosDevice device;
+	private final long coldLatencyMillis;
+	private final long warmLatencyMillis;
+
+	public DeviceReadiness(SonosDevice device, long coldLatencyMillis, long warmLatencyMillis) {
+		this.device = device;
+		this.coldLatencyMillis = coldLatencyMillis;
+		this.warmLatencyMillis = warmLatencyMillis;
+	}
+
+	public SonosDevice getDevice() {
+		return device;
+	}
+
+	/**
+	 * @return the latency of the first request including connection setup
+	 */
+	public long getColdLatencyMillis() {
+		return coldLatencyMillis;
+	}
+
+	/**
+	 * @return the latency of the same request on the pooled connection. This is
+	 *         what following commands are expected to cost
+	 */
+	public long getWarmLatencyMillis() {
+		return warmLatencyMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "DeviceReadiness [device=" + device + ", coldLatencyMillis=" + coldLatencyMillis
+				+ ", warmLatencyMillis=" + warmLatencyMillis + "]";
+	}
+
+}
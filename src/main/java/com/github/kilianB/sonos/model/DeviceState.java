@@ -0,0 +1,80 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * Immutable snapshot of the playback, rendering and group state of a device.
+ *
+ * @author Kilian
+ * @see com.github.kilianB.sonos.SonosDevice#snapshot()
+ */
+public class DeviceState {
+
+	private final PlayState playState;
+	private final TrackInfo trackInfo;
+	private final PlayMode playMode;
+	private final int volume;
+	private final boolean muted;
+	private final int bass;
+	private final int treble;
+	private final boolean loudness;
+	private final SonosZoneInfo zoneInfo;
+
+	public DeviceState(PlayState playState, TrackInfo trackInfo, PlayMode playMode, int volume, boolean muted,
+			int bass, int treble, boolean loudness, SonosZoneInfo zoneInfo) {
+		this.playState = playState;
+		this.trackInfo = trackInfo;
+		this.playMode = playMode;
+		this.volume = volume;
+		this.muted = muted;
+		this.bass = bass;
+		this.treble = treble;
+		this.loudness = loudness;
+		this.zoneInfo = zoneInfo;
+	}
+
+	public PlayState getPlayState() {
+		return playState;
+	}
+
+	public TrackInfo getTrackInfo() {
+		return trackInfo;
+	}
+
+	public PlayMode getPlayMode() {
+		return playMode;
+	}
+
+	public int getVolume() {
+		return volume;
+	}
+
+	public boolean isMuted() {
+		return muted;
+	}
+
+	public int getBass() {
+		return bass;
+	}
+
+	public int getTreble() {
+		return treble;
+	}
+
+	public boolean isLoudnessActivated() {
+		return loudness;
+	}
+
+	/**
+	 * @return the name, id and members of the group the device belongs to
+	 */
+	public SonosZoneInfo getZoneInfo() {
+		return zoneInfo;
+	}
+
+	@Override
+	public String toString() {
+		return "DeviceState [playState=" + playState + ", trackInfo=" + trackInfo + ", playMode=" + playMode
+				+ ", volume=" + volume + ", muted=" + muted + ", bass=" + bass + ", treble=" + treble
+				+ ", loudness=" + loudness + ", zoneInfo=" + zoneInfo + "]";
+	}
+
+}
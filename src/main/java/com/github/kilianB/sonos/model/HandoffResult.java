@@ -0,0 +1,63 @@
+package com.github.kilianB.sonos.model;
+
+import com.github.kilianB.sonos.Household;
+
+/**
+ * Outcome of moving the playback from one room to another.
+ *
+ * @author Kilian
+ * @see Household#handoff(com.github.kilianB.sonos.SonosDevice,
+ *      com.github.kilianB.sonos.SonosDevice, long, java.util.concurrent.TimeUnit)
+ */
+public class HandoffResult {
+
+	public enum Mode {
+		/**
+		 * The target joined the group of the source and the source left once the
+		 * target played in sync
+		 */
+		GROUP_TRANSFER,
+		/**
+		 * The transport of the source was copied to the target and the source
+		 * paused once the target started
+		 */
+		SNAPSHOT_RESTORE
+	}
+
+	private final Mode mode;
+	private final long gapMillis;
+	private final long durationMillis;
+
+	public HandoffResult(Mode mode, long gapMillis, long durationMillis) {
+		this.mode = mode;
+		this.gapMillis = gapMillis;
+		this.durationMillis = durationMillis;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @return the time between the source stopping and the target starting as
+	 *         reported by the devices. A negative value is the time both rooms
+	 *         played at once
+	 */
+	public long getGapMillis() {
+		return gapMillis;
+	}
+
+	/**
+	 * @return the duration of the entire handoff
+	 */
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "HandoffResult [mode=" + mode + ", gapMillis=" + gapMillis + ", durationMillis=" + durationMillis
+				+ "]";
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.kilianB.sonos.SonosDevice;
+
+/**
+ * Aggregated outcome of an operation executed on multiple devices.
+ *
+ * @author Kilian
+ * @param <T> the result type of the operation
+ * @see com.github.kilianB.sonos.Household Household
+ */
+public class HouseholdResult<T> {
+
+	private final Map<SonosDevice, T> results = new LinkedHashMap<>();
+	private final Map<SonosDevice, Exception> failures = new LinkedHashMap<>();
+	private final List<SonosDevice> skipped = new ArrayList<>();
+
+	public synchronized void addResult(SonosDevice device, T result) {
+		results.put(device, result);
+	}
+
+	public synchronized void addFailure(SonosDevice device, Exception exception) {
+		failures.put(device, exception);
+	}
+
+	public synchronized void addSkipped(SonosDevice device) {
+		skipped.add(device);
+	}
+
+	/**
+	 * @return the results of all devices the operation succeeded on. Operations
+	 *         without a return value map to null
+	 */
+	public synchronized Map<SonosDevice, T> getResults() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(results));
+	}
+
+	/**
+	 * @return the exception of all devices the operation failed on
+	 */
+	public synchronized Map<SonosDevice, Exception> getFailures() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+	}
+
+	/**
+	 * @return the devices the operation was not executed on because they do not
+	 *         support it
+	 */
+	public synchronized List<SonosDevice> getSkipped() {
+		return Collections.unmodifiableList(new ArrayList<>(skipped));
+	}
+
+	/**
+	 * @return true if the operation succeeded on all devices it was executed on
+	 */
+	public synchronized boolean isSuccess() {
+		return failures.isEmpty();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "HouseholdResult [results=" + results + ", failures=" + failures + ", skipped=" + skipped + "]";
+	}
+
+}
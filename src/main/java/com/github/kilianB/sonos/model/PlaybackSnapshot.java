@@ -0,0 +1,107 @@
+package com.github.kilianB.sonos.model;
+
+import com.github.kilianB.sonos.SonosDevice;
+
+/**
+ * Transport, volume and grouping state of a single device captured before
+ * temporarily taking over the playback e.g. for announcements.
+ *
+ * @author Kilian
+ * @see com.github.kilianB.sonos.AnnouncementEngine AnnouncementEngine
+ */
+public class PlaybackSnapshot {
+
+	private final SonosDevice device;
+	private final String uuid;
+	private final String transportURI;
+	private final String transportMetadata;
+	private final PlayState playState;
+	private final int trackNumber;
+	private final int position;
+	private final int volume;
+	private final boolean muted;
+
+	public PlaybackSnapshot(SonosDevice device, String uuid, String transportURI, String transportMetadata,
+			PlayState playState, int trackNumber, int position, int volume, boolean muted) {
+		this.device = device;
+		this.uuid = uuid;
+		this.transportURI = transportURI;
+		this.transportMetadata = transportMetadata;
+		this.playState = playState;
+		this.trackNumber = trackNumber;
+		this.position = position;
+		this.volume = volume;
+		this.muted = muted;
+	}
+
+	public SonosDevice getDevice() {
+		return device;
+	}
+
+	public String getUUID() {
+		return uuid;
+	}
+
+	/**
+	 * @return the uri of the source the device was playing. For group members
+	 *         this points to the coordinator (x-rincon:)
+	 */
+	public String getTransportURI() {
+		return transportURI;
+	}
+
+	/**
+	 * @return the unescaped DIDL metadata of the source
+	 */
+	public String getTransportMetadata() {
+		return transportMetadata;
+	}
+
+	public PlayState getPlayState() {
+		return playState;
+	}
+
+	/**
+	 * @return the track number in the queue. Only meaningful for queue sources
+	 */
+	public int getTrackNumber() {
+		return trackNumber;
+	}
+
+	/**
+	 * @return the position in the current track in seconds
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	public int getVolume() {
+		return volume;
+	}
+
+	public boolean isMuted() {
+		return muted;
+	}
+
+	/**
+	 * @return true if the device was a non coordinator member of a group
+	 */
+	public boolean isGroupMember() {
+		return transportURI.startsWith("x-rincon:");
+	}
+
+	/**
+	 * @return true if the device was playing from its queue
+	 */
+	public boolean isQueueSource() {
+		return transportURI.startsWith("x-rincon-queue:");
+	}
+
+	@Override
+	public String toString() {
+		return "PlaybackSnapshot [uuid=" + uuid + ", transportURI=" + transportURI + ", playState=" + playState
+				+ ", trackNumber=" + trackNumber + ", position=" + position + ", volume=" + volume + ", muted="
+				+ muted + "]";
+	}
+
+}
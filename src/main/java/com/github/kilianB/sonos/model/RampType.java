@@ -0,0 +1,37 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * Volume ramps executed by the device itself. The duration and shape of the
+ * ramp is defined by the firmware.
+ *
+ * @author Kilian
+ */
+public enum RampType {
+	/**
+	 * Fast ramp used by the sleep timer. Usually a few seconds.
+	 */
+	SLEEP_TIMER("SLEEP_TIMER_RAMP_TYPE"),
+
+	/**
+	 * Slow ramp used by alarms. Usually around 30 seconds.
+	 */
+	ALARM("ALARM_RAMP_TYPE"),
+
+	/**
+	 * Ramp used when playback is started automatically e.g. by the line-in.
+	 */
+	AUTOPLAY("AUTOPLAY_RAMP_TYPE");
+
+	private final String value;
+
+	RampType(String value) {
+		this.value = value;
+	}
+
+	/**
+	 * @return the value sent to the device
+	 */
+	public String getValue() {
+		return value;
+	}
+}
@@ -0,0 +1,29 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * Attributes of a device managed by a scene.
+ *
+ * @author Kilian
+ * @see com.github.kilianB.sonos.SceneReconciler SceneReconciler
+ */
+public enum SceneAttribute {
+	/**
+	 * Group membership. Applied before any transport attribute
+	 */
+	GROUP,
+	/**
+	 * The uri of the transport
+	 */
+	SOURCE,
+	/**
+	 * Playing, paused or stopped. Applied after the source
+	 */
+	PLAY_STATE,
+	VOLUME,
+	MUTE,
+	BASS,
+	TREBLE,
+	LOUDNESS,
+	NIGHT_MODE,
+	DIALOG_MODE
+}
@@ -0,0 +1,110 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.kilianB.sonos.SonosDevice;
+
+/**
+ * Per device and attribute outcome of applying a scene.
+ *
+ * @author Kilian
+ * @see com.github.kilianB.sonos.SceneReconciler SceneReconciler
+ */
+public class SceneOutcome {
+
+	public enum Status {
+		/**
+		 * The attribute already had the desired value. No command was sent
+		 */
+		UNCHANGED,
+		/**
+		 * The command changing the attribute succeeded
+		 */
+		APPLIED,
+		/**
+		 * Reading or changing the attribute failed
+		 */
+		FAILED,
+		/**
+		 * Not attempted because an attribute it depends on failed
+		 */
+		SKIPPED
+	}
+
+	private final Map<SonosDevice, Map<SceneAttribute, Status>> statuses = new LinkedHashMap<>();
+	private final Map<SonosDevice, Map<SceneAttribute, Exception>> failures = new LinkedHashMap<>();
+
+	public synchronized void addStatus(SonosDevice device, SceneAttribute attribute, Status status) {
+		statuses.computeIfAbsent(device, key -> new EnumMap<>(SceneAttribute.class)).put(attribute, status);
+	}
+
+	public synchronized void addFailure(SonosDevice device, SceneAttribute attribute, Exception exception) {
+		addStatus(device, attribute, Status.FAILED);
+		failures.computeIfAbsent(device, key -> new EnumMap<>(SceneAttribute.class)).put(attribute, exception);
+	}
+
+	/**
+	 * @param device    the device
+	 * @param attribute the attribute
+	 * @return the outcome or null if the attribute was not managed by the scene
+	 */
+	public synchronized Status getStatus(SonosDevice device, SceneAttribute attribute) {
+		Map<SceneAttribute, Status> deviceStatuses = statuses.get(device);
+		return deviceStatuses == null ? null : deviceStatuses.get(attribute);
+	}
+
+	/**
+	 * @param device the device
+	 * @return the outcome of every attribute of the device managed by the scene
+	 */
+	public synchronized Map<SceneAttribute, Status> getStatuses(SonosDevice device) {
+		Map<SceneAttribute, Status> deviceStatuses = statuses.get(device);
+		return deviceStatuses == null ? Collections.emptyMap()
+				: Collections.unmodifiableMap(new EnumMap<>(deviceStatuses));
+	}
+
+	/**
+	 * @param device the device
+	 * @return the exception of every attribute of the device which failed
+	 */
+	public synchronized Map<SceneAttribute, Exception> getFailures(SonosDevice device) {
+		Map<SceneAttribute, Exception> deviceFailures = failures.get(device);
+		return deviceFailures == null ? Collections.emptyMap()
+				: Collections.unmodifiableMap(new EnumMap<>(deviceFailures));
+	}
+
+	/**
+	 * @return the number of commands sent to apply the scene
+	 */
+	public synchronized int getAppliedCount() {
+		int count = 0;
+		for (Map<SceneAttribute, Status> deviceStatuses : statuses.values()) {
+			for (Status status : deviceStatuses.values()) {
+				if (status == Status.APPLIED) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return true if no attribute failed or was skipped
+	 */
+	public synchronized boolean isSuccess() {
+		for (Map<SceneAttribute, Status> deviceStatuses : statuses.values()) {
+			if (deviceStatuses.containsValue(Status.FAILED) || deviceStatuses.containsValue(Status.SKIPPED)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "SceneOutcome [statuses=" + statuses + ", failures=" + failures + "]";
+	}
+}
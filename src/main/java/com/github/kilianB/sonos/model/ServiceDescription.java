@@ -0,0 +1,86 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A UPnP service offered by a device as declared in the device description
+ * and its service description (SCPD).
+ *
+ * @author Kilian
+ */
+public class ServiceDescription {
+
+	private final String serviceType;
+	private final String serviceId;
+	private final String controlURL;
+	private final String eventSubURL;
+	private final Map<String, ActionDescription> actions;
+	private final Map<String, StateVariable> stateVariables;
+
+	public ServiceDescription(String serviceType, String serviceId, String controlURL, String eventSubURL,
+			Map<String, ActionDescription> actions, Map<String, StateVariable> stateVariables) {
+		this.serviceType = serviceType;
+		this.serviceId = serviceId;
+		this.controlURL = controlURL;
+		this.eventSubURL = eventSubURL;
+		this.actions = Collections.unmodifiableMap(new LinkedHashMap<>(actions));
+		this.stateVariables = Collections.unmodifiableMap(new LinkedHashMap<>(stateVariables));
+	}
+
+	/**
+	 * @return the service type e.g. urn:schemas-upnp-org:service:AVTransport:1
+	 */
+	public String getServiceType() {
+		return serviceType;
+	}
+
+	/**
+	 * @return the service id e.g. urn:upnp-org:serviceId:AVTransport
+	 */
+	public String getServiceId() {
+		return serviceId;
+	}
+
+	/**
+	 * @return the path actions are posted to e.g.
+	 *         /MediaRenderer/AVTransport/Control
+	 */
+	public String getControlURL() {
+		return controlURL;
+	}
+
+	public String getEventSubURL() {
+		return eventSubURL;
+	}
+
+	/**
+	 * @return action name -&gt; action
+	 */
+	public Map<String, ActionDescription> getActions() {
+		return actions;
+	}
+
+	/**
+	 * @param action the name of the action
+	 * @return the action or null if the service does not offer it
+	 */
+	public ActionDescription getAction(String action) {
+		return actions.get(action);
+	}
+
+	/**
+	 * @return variable name -&gt; state variable
+	 */
+	public Map<String, StateVariable> getStateVariables() {
+		return stateVariables;
+	}
+
+	@Override
+	public String toString() {
+		return "ServiceDescription [serviceType=" + serviceType + ", controlURL=" + controlURL + ", actions="
+				+ actions.keySet() + "]";
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.kilianB.sonos.SonosDevice;
+
+/**
+ * Measured start times of devices started at once.
+ *
+ * @author Kilian
+ * @see com.github.kilianB.sonos.Household#startTogether(Map, long,
+ *      java.util.concurrent.TimeUnit) Household.startTogether
+ */
+public class StartSkew {
+
+	private final Map<SonosDevice, Long> startOffsets;
+	private final Map<SonosDevice, Long> acknowledgeOffsets;
+
+	/**
+	 * @param startOffsets       milliseconds each device reported playback after
+	 *                           the first device
+	 * @param acknowledgeOffsets milliseconds each device acknowledged the play
+	 *                           command after the first device
+	 */
+	public StartSkew(Map<SonosDevice, Long> startOffsets, Map<SonosDevice, Long> acknowledgeOffsets) {
+		this.startOffsets = Collections.unmodifiableMap(new LinkedHashMap<>(startOffsets));
+		this.acknowledgeOffsets = Collections.unmodifiableMap(new LinkedHashMap<>(acknowledgeOffsets));
+	}
+
+	/**
+	 * @return the time in milliseconds each device reported playback via its
+	 *         avtransport event after the first device did. Measured when the
+	 *         events arrived locally, not from device side timestamps
+	 */
+	public Map<SonosDevice, Long> getStartOffsets() {
+		return startOffsets;
+	}
+
+	/**
+	 * @return the time in milliseconds each device answered the play command
+	 *         after the first device did
+	 */
+	public Map<SonosDevice, Long> getAcknowledgeOffsets() {
+		return acknowledgeOffsets;
+	}
+
+	/**
+	 * @return the time between the first and the last device reporting playback
+	 */
+	public long getSkewMillis() {
+		return max(startOffsets);
+	}
+
+	/**
+	 * @return the time between the first and the last device answering the play
+	 *         command. The part of the skew caused by the network and the request
+	 *         handling of the devices
+	 */
+	public long getAcknowledgeSkewMillis() {
+		return max(acknowledgeOffsets);
+	}
+
+	private static long max(Map<SonosDevice, Long> offsets) {
+		long max = 0;
+		for (long offset : offsets.values()) {
+			max = Math.max(max, offset);
+		}
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return "StartSkew [skewMillis=" + getSkewMillis() + ", acknowledgeSkewMillis=" + getAcknowledgeSkewMillis()
+				+ ", startOffsets=" + startOffsets + "]";
+	}
+
+}
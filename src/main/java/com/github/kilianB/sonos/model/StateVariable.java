@@ -0,0 +1,56 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State variable declared in the service description (SCPD) of a UPnP service.
+ *
+ * @author Kilian
+ */
+public class StateVariable {
+
+	private final String name;
+	private final String dataType;
+	private final boolean sendEvents;
+	private final List<String> allowedValues;
+
+	public StateVariable(String name, String dataType, boolean sendEvents, List<String> allowedValues) {
+		this.name = name;
+		this.dataType = dataType;
+		this.sendEvents = sendEvents;
+		this.allowedValues = Collections.unmodifiableList(allowedValues);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the UPnP data type e.g. string, ui4, i2 or boolean
+	 */
+	public String getDataType() {
+		return dataType;
+	}
+
+	/**
+	 * @return true if changes of the variable are evented
+	 */
+	public boolean isSendEvents() {
+		return sendEvents;
+	}
+
+	/**
+	 * @return the allowed values or an empty list if the value is not restricted
+	 *         to a list
+	 */
+	public List<String> getAllowedValues() {
+		return allowedValues;
+	}
+
+	@Override
+	public String toString() {
+		return "StateVariable [name=" + name + ", dataType=" + dataType + "]";
+	}
+
+}
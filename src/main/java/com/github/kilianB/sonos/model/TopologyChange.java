@@ -0,0 +1,76 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * A single delta between two consecutive zone group states.
+ *
+ * @author Kilian
+ * @see com.github.kilianB.sonos.ZoneTopology ZoneTopology
+ */
+public class TopologyChange {
+
+	public enum Type {
+		/**
+		 * A zone player appeared in the topology
+		 */
+		MEMBER_ONLINE,
+		/**
+		 * A zone player is no longer part of the topology
+		 */
+		MEMBER_OFFLINE,
+		/**
+		 * A zone player became part of a group
+		 */
+		GROUP_JOINED,
+		/**
+		 * A zone player left a group
+		 */
+		GROUP_LEFT,
+		/**
+		 * The coordinator of a group changed
+		 */
+		COORDINATOR_CHANGED
+	}
+
+	private final Type type;
+	private final ZoneGroupMember member;
+	private final ZoneGroup group;
+	private final ZoneGroup previousGroup;
+
+	/**
+	 * @param type          the kind of change
+	 * @param member        the affected member. For coordinator changes the new
+	 *                      coordinator
+	 * @param group         the group after the change. For group left events the
+	 *                      group the member left
+	 * @param previousGroup the group before the change or null if not applicable
+	 */
+	public TopologyChange(Type type, ZoneGroupMember member, ZoneGroup group, ZoneGroup previousGroup) {
+		this.type = type;
+		this.member = member;
+		this.group = group;
+		this.previousGroup = previousGroup;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public ZoneGroupMember getMember() {
+		return member;
+	}
+
+	public ZoneGroup getGroup() {
+		return group;
+	}
+
+	public ZoneGroup getPreviousGroup() {
+		return previousGroup;
+	}
+
+	@Override
+	public String toString() {
+		return "TopologyChange [type=" + type + ", member=" + member + ", group=" + group + ", previousGroup="
+				+ previousGroup + "]";
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Snapshot of the health of the connection to a single device.
+ *
+ * @author Kilian
+ */
+public class TransportMetrics {
+
+	private final CircuitState circuitState;
+	private final long requests;
+	private final long failures;
+	private final long retries;
+	private final int consecutiveFailures;
+	private final long p99LatencyMillis;
+	private final Map<String, Long> timeoutMillis;
+
+	public TransportMetrics(CircuitState circuitState, long requests, long failures, long retries,
+			int consecutiveFailures, long p99LatencyMillis, Map<String, Long> timeoutMillis) {
+		this.circuitState = circuitState;
+		this.requests = requests;
+		this.failures = failures;
+		this.retries = retries;
+		this.consecutiveFailures = consecutiveFailures;
+		this.p99LatencyMillis = p99LatencyMillis;
+		this.timeoutMillis = Collections.unmodifiableMap(timeoutMillis);
+	}
+
+	public CircuitState getCircuitState() {
+		return circuitState;
+	}
+
+	/**
+	 * @return the number of requests sent including retries
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	/**
+	 * @return the number of requests failing due to io errors or timeouts
+	 */
+	public long getFailures() {
+		return failures;
+	}
+
+	/**
+	 * @return the number of retried read requests
+	 */
+	public long getRetries() {
+		return retries;
+	}
+
+	/**
+	 * @return the number of consecutive requests the device could not be reached
+	 *         for. Read timeouts are not included
+	 */
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	/**
+	 * @return the 99th percentile of the recent request latencies or -1 if not
+	 *         enough requests were observed yet
+	 */
+	public long getP99LatencyMillis() {
+		return p99LatencyMillis;
+	}
+
+	/**
+	 * @return the timeout currently applied to requests of each soap action or
+	 *         downloaded document
+	 */
+	public Map<String, Long> getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "TransportMetrics [circuitState=" + circuitState + ", requests=" + requests + ", failures="
+				+ failures + ", retries=" + retries + ", consecutiveFailures=" + consecutiveFailures
+				+ ", p99LatencyMillis=" + p99LatencyMillis + ", timeoutMillis=" + timeoutMillis + "]";
+	}
+
+}
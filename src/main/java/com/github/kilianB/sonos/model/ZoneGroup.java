@@ -0,0 +1,85 @@
+package com.github.kilianB.sonos.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a zone group as advertised in the ZoneGroupState of
+ * the topology service.
+ *
+ * @author Kilian
+ *
+ */
+public class ZoneGroup {
+
+	private final String id;
+	private final String coordinatorUUID;
+	private final List<ZoneGroupMember> members;
+
+	public ZoneGroup(String id, String coordinatorUUID, List<ZoneGroupMember> members) {
+		this.id = id;
+		this.coordinatorUUID = coordinatorUUID;
+		this.members = Collections.unmodifiableList(new ArrayList<>(members));
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getCoordinatorUUID() {
+		return coordinatorUUID;
+	}
+
+	/**
+	 * @return the coordinator of this group or null if the coordinator is not
+	 *         part of the member list
+	 */
+	public ZoneGroupMember getCoordinator() {
+		for (ZoneGroupMember member : members) {
+			if (member.getUUID().equals(coordinatorUUID)) {
+				return member;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return all members of the group including invisible ones
+	 */
+	public List<ZoneGroupMember> getMembers() {
+		return members;
+	}
+
+	/**
+	 * @param uuid the uuid of the zone player
+	 * @return true if the zone player is part of this group
+	 */
+	public boolean contains(String uuid) {
+		for (ZoneGroupMember member : members) {
+			if (member.getUUID().equals(uuid)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the zone names of all visible members of the group
+	 */
+	public ArrayList<String> getZoneNames() {
+		ArrayList<String> names = new ArrayList<>();
+		for (ZoneGroupMember member : members) {
+			if (!member.isInvisible()) {
+				names.add(member.getZoneName());
+			}
+		}
+		return names;
+	}
+
+	@Override
+	public String toString() {
+		return "ZoneGroup [id=" + id + ", coordinatorUUID=" + coordinatorUUID + ", members=" + members + "]";
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.github.kilianB.sonos.model;
+
+/**
+ * A single zone player as advertised in the ZoneGroupState of the topology
+ * service.
+ *
+ * @author Kilian
+ *
+ */
+public class ZoneGroupMember {
+
+	/**
+	 * Unique identifier of the zone player e.g. RINCON_000E58XXXXXXXX01400
+	 */
+	private final String uuid;
+	private final String zoneName;
+	private final String location;
+	private final String ipAddress;
+
+	/**
+	 * Invisible members are satellites or the second half of a stereo pair
+	 */
+	private final boolean invisible;
+
+	public ZoneGroupMember(String uuid, String zoneName, String location, boolean invisible) {
+		this.uuid = uuid;
+		this.zoneName = zoneName;
+		this.location = location;
+		this.invisible = invisible;
+		this.ipAddress = parseHost(location);
+	}
+
+	public String getUUID() {
+		return uuid;
+	}
+
+	public String getZoneName() {
+		return zoneName;
+	}
+
+	/**
+	 * @return the url of the device description of the zone player
+	 */
+	public String getLocation() {
+		return location;
+	}
+
+	/**
+	 * @return the ip address of the zone player extracted from the location url
+	 *         or an empty string if the location is not known
+	 */
+	public String getIpAddress() {
+		return ipAddress;
+	}
+
+	public boolean isInvisible() {
+		return invisible;
+	}
+
+	// http://192.168.0.10:1400/xml/device_description.xml
+	private static String parseHost(String location) {
+		if (location == null) {
+			return "";
+		}
+		int start = location.indexOf("://");
+		start = start < 0 ? 0 : start + 3;
+		int end = start;
+		while (end < location.length() && location.charAt(end) != ':' && location.charAt(end) != '/') {
+			end++;
+		}
+		return location.substring(start, end);
+	}
+
+	@Override
+	public int hashCode() {
+		return uuid.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		return uuid.equals(((ZoneGroupMember) obj).uuid);
+	}
+
+	@Override
+	public String toString() {
+		return "ZoneGroupMember [uuid=" + uuid + ", zoneName=" + zoneName + ", ipAddress=" + ipAddress
+				+ ", invisible=" + invisible + "]";
+	}
+
+}
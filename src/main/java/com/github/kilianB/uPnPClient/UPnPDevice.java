@@ -609,7 +609,7 @@ public class UPnPDevice {
 	 * @throws UnknownHostException If the ip is not well formated or valid
 	 */
 	public static UPnPDevice createDummyDevice(String ip) throws UnknownHostException {
-		return new UPnPDevice(InetAddress.getByName(ip), null);
+		return new UPnPDevice(InetAddress.getByName(ip), new HashMap<String, String>());
 	}
 
 }